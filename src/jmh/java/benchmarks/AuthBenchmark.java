@@ -0,0 +1,84 @@
+package benchmarks;
+
+import auth.AuthManager;
+import auth.LoginFlushPolicy;
+import auth.PasswordHasher;
+import models.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthBenchmark - AuthManager.login, with the password hash cost as a parameter
+ * so the lookup and persistence overhead can be seen apart from PBKDF2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"1000", "100000"})
+    public int students;
+
+    @Param({"1", "210000"})
+    public int hashIterations;
+
+    @Param({"IMMEDIATE", "BATCHED"})
+    public String flush;
+
+    private Path dataDir;
+    private AuthManager authManager;
+    private int nextStudent;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Datasets.newDataDir();
+        FileHandler fileHandler = new FileHandler(dataDir, FileHandler.SyncPolicy.NEVER);
+        // Existing hashes keep their own cost, so every student shares one hash of the chosen cost
+        Datasets.writeStudents(fileHandler, students, new PasswordHasher(hashIterations).hash(PASSWORD));
+        // AuthManager reads the cost for new hashes from this property; match it to avoid rehashing
+        System.setProperty("smarttask.pbkdf2.iterations", String.valueOf(hashIterations));
+        authManager = new AuthManager(fileHandler, LoginFlushPolicy.fromString(flush), Duration.ofSeconds(30));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        authManager.close();
+        Datasets.delete(dataDir);
+    }
+
+    private String nextEmail() {
+        nextStudent = (nextStudent + 1) % students;
+        return Datasets.email(nextStudent);
+    }
+
+    @Benchmark
+    public Student login() {
+        return authManager.login(nextEmail(), PASSWORD);
+    }
+
+    @Benchmark
+    public Student loginUnknownEmail() {
+        return authManager.login("nobody" + nextStudent + "@uni.edu", PASSWORD);
+    }
+}
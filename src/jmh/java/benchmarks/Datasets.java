@@ -0,0 +1,89 @@
+package benchmarks;
+
+import models.Task;
+import models.TaskCodec;
+import utils.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Datasets - Synthetic task and student data for the benchmarks.
+ *
+ * Data is deterministic for a given seed and written into a scratch data
+ * directory, so each benchmark loads it through the real persistence path.
+ */
+final class Datasets {
+    static final String[] CATEGORIES = {"Lab", "Study", "Personal", "Assignment", "Project"};
+    static final long SEED = 42;
+
+    private Datasets() {}
+
+    static String email(int student) {
+        return "student" + student + "@uni.edu";
+    }
+
+    static Path newDataDir() throws IOException {
+        return Files.createTempDirectory("smarttask-bench");
+    }
+
+    /**
+     * Builds tasks spread evenly over the students, with due dates within a month
+     * either side of now and roughly a third of them completed.
+     */
+    static List<Task> tasks(int count, int students, long seed) {
+        Random random = new Random(seed);
+        Task.Priority[] priorities = Task.Priority.values();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            Task task = new Task(id, email(id % students), "Task " + id,
+                    "Synthetic description for task " + id,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    priorities[random.nextInt(priorities.length)],
+                    now.plusMinutes(random.nextInt(60 * 24 * 60) - 60 * 24 * 30));
+            task.setCompleted(random.nextInt(3) == 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes a task snapshot in the codec's format.
+     */
+    static void writeTasks(FileHandler fileHandler, TaskCodec codec, String baseName, int count, int students)
+            throws IOException {
+        codec.write(fileHandler, baseName + "." + codec.getFileExtension(), tasks(count, students, SEED));
+    }
+
+    /**
+     * Writes students.txt where every student shares the given password hash.
+     */
+    static void writeStudents(FileHandler fileHandler, int students, String hashedPassword) throws IOException {
+        String createdAt = LocalDateTime.now().withNano(0).toString();
+        List<String> lines = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            lines.add(String.join("|", email(i), "First" + i, "Last" + i, "S" + i, "cse",
+                    hashedPassword, createdAt, "null", "true"));
+        }
+        fileHandler.writeFile("students.txt", lines);
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package benchmarks;
+
+import models.Student;
+import models.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParserBenchmark - Cost of parsing and formatting task and student records,
+ * comparing the FieldTokenizer path with the previous split/LocalDateTime.parse path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"100000"})
+    public int records;
+
+    private String[] taskLines;
+    private String[] studentLines;
+    private Task[] tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDateTime base = LocalDateTime.of(2025, 10, 15, 17, 20, 1, 348_438_400);
+        taskLines = new String[records];
+        studentLines = new String[records];
+        for (int i = 0; i < records; i++) {
+            LocalDateTime created = base.plusSeconds(i);
+            taskLines[i] = String.join("|", String.valueOf(i), "student" + (i % 500) + "@uni.edu",
+                    "Task " + i, "Description of task " + i, "Assignment", "medium",
+                    created.toString(), created.plusDays(3).withSecond(0).withNano(0).toString(),
+                    String.valueOf(i % 3 == 0));
+            studentLines[i] = String.join("|", "student" + i + "@uni.edu", "First", "Last",
+                    "S" + i, "cse", "hash" + i, created.toString(),
+                    i % 2 == 0 ? "null" : created.plusHours(1).toString(), "true");
+        }
+        tasks = new Task[records];
+        for (int i = 0; i < records; i++) {
+            tasks[i] = Task.fromFileString(taskLines[i]);
+        }
+    }
+
+    @Benchmark
+    public void taskTokenizer(Blackhole bh) {
+        for (String line : taskLines) {
+            bh.consume(Task.fromFileString(line));
+        }
+    }
+
+    @Benchmark
+    public void taskLegacySplit(Blackhole bh) {
+        for (String line : taskLines) {
+            bh.consume(legacyTaskFromFileString(line));
+        }
+    }
+
+    @Benchmark
+    public void taskToFileString(Blackhole bh) {
+        for (Task task : tasks) {
+            bh.consume(task.toFileString());
+        }
+    }
+
+    @Benchmark
+    public void studentTokenizer(Blackhole bh) {
+        for (String line : studentLines) {
+            bh.consume(Student.fromFileString(line));
+        }
+    }
+
+    @Benchmark
+    public void studentLegacySplit(Blackhole bh) {
+        for (String line : studentLines) {
+            bh.consume(legacyStudentFromFileString(line));
+        }
+    }
+
+    // --- The parsing code as it was before FieldTokenizer, kept as the baseline ---
+
+    private static Task legacyTaskFromFileString(String line) {
+        String[] parts = line.split("\\|", -1);
+        if (parts.length < 9) {
+            return null;
+        }
+        Task task = new Task();
+        task.setId(Integer.parseInt(parts[0]));
+        task.setStudentEmail(parts[1]);
+        task.setTitle(parts[2]);
+        task.setDescription(parts[3]);
+        task.setCategory(parts[4]);
+        task.setPriority(Task.Priority.fromString(parts[5]));
+        task.setCreatedAt(LocalDateTime.parse(parts[6]));
+        task.setDueDate(LocalDateTime.parse(parts[7]));
+        task.setCompleted(Boolean.parseBoolean(parts[8]));
+        return task;
+    }
+
+    private static Student legacyStudentFromFileString(String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length < 9) {
+            return null;
+        }
+        Student student = new Student();
+        student.setEmail(parts[0]);
+        student.setFirstName(parts[1]);
+        student.setLastName(parts[2]);
+        student.setStudentId(parts[3]);
+        student.setMajor(parts[4]);
+        student.setHashedPassword(parts[5]);
+        student.setCreatedAt(LocalDateTime.parse(parts[6]));
+        if (!parts[7].equals("null")) {
+            student.setLastLoginAt(LocalDateTime.parse(parts[7]));
+        }
+        student.setActive(Boolean.parseBoolean(parts[8]));
+        return student;
+    }
+}
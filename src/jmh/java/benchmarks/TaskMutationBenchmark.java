@@ -0,0 +1,123 @@
+package benchmarks;
+
+import models.Task;
+import models.TaskCodec;
+import models.TaskManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskMutationBenchmark - Dashboard write path, including persistence to the journal
+ * and the periodic snapshot compaction it triggers.
+ *
+ * Journal writes happen in the background, so addTask and friends measure what a
+ * caller waits for. addTaskAndFlush waits for the journal as well, which shows the
+ * cost of a write that must be on disk before returning.
+ *
+ * With the sharded layout a compaction rewrites one student's store instead of
+ * all tasks. The dataset is written as a single store and split on first start.
+ *
+ * completeTask is only measured together with the addTask that creates a pending
+ * task for it, since completing is one-way; subtract addTask to isolate it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TaskMutationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tasks;
+
+    @Param({"1000"})
+    public int students;
+
+    @Param({"text", "binary"})
+    public String codec;
+
+    @Param({"NEVER", "BATCHED"})
+    public String sync;
+
+    // "single" keeps every task in one store, "sharded" one store per student
+    @Param({"single", "sharded"})
+    public String layout;
+
+    private Path dataDir;
+    private TaskManager taskManager;
+    private Random random;
+    private LocalDateTime dueDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Datasets.newDataDir();
+        FileHandler fileHandler = new FileHandler(dataDir, FileHandler.SyncPolicy.fromString(sync));
+        TaskCodec taskCodec = TaskCodec.fromString(codec);
+        Datasets.writeTasks(fileHandler, taskCodec, TaskManager.TASKS_BASE_NAME, tasks, students);
+        System.setProperty("smarttask.layout", layout);
+        taskManager = new TaskManager(fileHandler, taskCodec);
+        for (int student = 0; student < students; student++) {
+            taskManager.loadStudent(Datasets.email(student)); // Sharded stores load on demand
+        }
+        random = new Random(Datasets.SEED);
+        dueDate = LocalDateTime.now().plusDays(7).withNano(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        taskManager.close();
+        Datasets.delete(dataDir);
+    }
+
+    private Task addRandomTask() {
+        int student = random.nextInt(students);
+        return taskManager.addTask("Benchmark task", "Added by TaskMutationBenchmark",
+                Datasets.CATEGORIES[student % Datasets.CATEGORIES.length], Task.Priority.MEDIUM,
+                dueDate.plusMinutes(student), Datasets.email(student));
+    }
+
+    @Benchmark
+    public Task addTask() {
+        return addRandomTask();
+    }
+
+    @Benchmark
+    public Task addTaskAndFlush() {
+        Task task = addRandomTask();
+        taskManager.flush().join();
+        return task;
+    }
+
+    @Benchmark
+    public boolean updateTask() {
+        // Ids of the generated dataset are 1..tasks
+        int id = 1 + random.nextInt(tasks);
+        return taskManager.updateTask(id, "Updated task " + id, "Updated by TaskMutationBenchmark",
+                Datasets.CATEGORIES[id % Datasets.CATEGORIES.length], Task.Priority.HIGH,
+                dueDate.plusMinutes(id % 10_000));
+    }
+
+    @Benchmark
+    public boolean addThenCompleteTask() {
+        return taskManager.completeTask(addRandomTask().getId());
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import models.TaskCodec;
+import models.TaskManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskQueryBenchmark - Dashboard read path: the filtered task list for each filter combination.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TaskQueryBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int tasks;
+
+    @Param({"1000"})
+    public int students;
+
+    // "index" answers from the per-student index, "columnar" scans TaskColumns
+    @Param({"index", "columnar"})
+    public String store;
+
+    @Param({"All", "Lab"})
+    public String category;
+
+    @Param({"All", "High"})
+    public String priority;
+
+    private Path dataDir;
+    private TaskManager taskManager;
+    private int nextStudent;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Datasets.newDataDir();
+        FileHandler fileHandler = new FileHandler(dataDir, FileHandler.SyncPolicy.NEVER);
+        TaskCodec codec = TaskCodec.fromString("binary");
+        Datasets.writeTasks(fileHandler, codec, TaskManager.TASKS_BASE_NAME, tasks, students);
+        System.setProperty("smarttask.store", store);
+        taskManager = new TaskManager(fileHandler, codec);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        taskManager.close();
+        Datasets.delete(dataDir);
+    }
+
+    private String nextEmail() {
+        nextStudent = (nextStudent + 1) % students;
+        return Datasets.email(nextStudent);
+    }
+
+    @Benchmark
+    public List<?> getTasksByStudent() {
+        return taskManager.getTasksByStudent(nextEmail(), category, priority);
+    }
+}
@@ -1,20 +1,27 @@
 package app;
 
+import models.PersistenceListener;
 import models.Student;
 import models.Task;
 import models.Task.Priority;
 import models.TaskManager;
+import utils.IntObjectMap;
 
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.font.TextAttribute;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 public class DashboardPanel extends JPanel implements ActionListener {
 
@@ -31,12 +38,19 @@ public class DashboardPanel extends JPanel implements ActionListener {
     private JButton completeTaskButton;
     private JComboBox<String> categoryFilterBox;
     private JComboBox<String> priorityFilterBox;
+    private JTextField searchField;
     private JButton logoutButton;
 
     private JList<Task> taskList;
-    private DefaultListModel<Task> listModel;
+    private TaskListModel listModel;
     private JLabel statsLabel;
 
+    // Task changes are saved in the background; failures are reported here, one dialog at a time
+    private final PersistenceListener persistenceListener = this::onPersistFailed;
+    private boolean persistErrorShown;
+    // Keeps the student's tasks loaded while the dashboard shows them
+    private TaskManager.StudentPin studentPin;
+
     // --- UX/UI: Beautiful Colors ---
     private final Color PRIMARY_ACCENT = new Color(79, 170, 185); // Soft Teal/Blue
     private final Color LIGHT_BG = new Color(245, 245, 245); // Light Gray Background
@@ -102,6 +116,20 @@ public class DashboardPanel extends JPanel implements ActionListener {
         priorityFilterBox.addActionListener(this);
         filterPanel.add(priorityFilterBox);
 
+        // Searches titles and descriptions as the student types
+        filterPanel.add(createFilterLabel("Search:"));
+        searchField = new JTextField(15);
+        searchField.setFont(new Font("Arial", Font.PLAIN, 12));
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { loadTasks(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { loadTasks(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) {} // Attribute changes only
+        });
+        filterPanel.add(searchField);
+
         // Combine Top Elements
         JPanel topContainer = new JPanel(new BorderLayout(0, 10));
         topContainer.setOpaque(false);
@@ -121,7 +149,7 @@ public class DashboardPanel extends JPanel implements ActionListener {
 
 
         // --- 2. Center Area (Task List) ---
-        listModel = new DefaultListModel<>();
+        listModel = new TaskListModel();
         taskList = new JList<>(listModel);
         taskList.setCellRenderer(new TaskCellRenderer());
         taskList.setFixedCellHeight(70); // Slightly taller for more visual appeal
@@ -142,6 +170,10 @@ public class DashboardPanel extends JPanel implements ActionListener {
         statsLabel.setBorder(new EmptyBorder(10, 5, 0, 0));
         add(statsLabel, BorderLayout.SOUTH);
 
+        taskManager.addPersistenceListener(persistenceListener);
+        // With the sharded layout, this is where the student's tasks are first read; the pin
+        // keeps them loaded until logout, so the selected tasks stay the managed ones
+        studentPin = taskManager.pinStudent(currentStudent.getEmail());
         loadTasks();
     }
 
@@ -177,6 +209,13 @@ public class DashboardPanel extends JPanel implements ActionListener {
 
 
     // --- Custom Renderer for Enhanced Design ---
+
+    /**
+     * Draws one task row. Every visible row is rendered on each paint, so nothing here
+     * allocates per call: the components, colors, fonts and borders are built once,
+     * the row strings are cached per task until its version changes, and "now" is
+     * refreshed at most once per second for the overdue/today status.
+     */
     private class TaskCellRenderer extends JPanel implements ListCellRenderer<Task> {
 
         // Softer, more pleasing color tones for backgrounds
@@ -184,34 +223,70 @@ public class DashboardPanel extends JPanel implements ActionListener {
         private final Color MEDIUM_COLOR = new Color(255, 255, 215); // Very soft yellow
         private final Color LOW_COLOR = new Color(215, 255, 215); // Very soft green
         private final Color COMPLETED_COLOR = new Color(230, 230, 230); // Lighter gray
+        private final Color SELECTED_COLOR = PRIMARY_ACCENT.brighter();
+        private final Color HIGH_DOT_COLOR = new Color(220, 0, 0);
+        private final Color MEDIUM_DOT_COLOR = new Color(200, 100, 0);
+        private final Color LOW_DOT_COLOR = new Color(0, 150, 0);
+        private final Color OVERDUE_COLOR = new Color(180, 0, 0);
+        private final Color TODAY_COLOR = new Color(0, 100, 0);
+        private final Color DONE_COLOR = PRIMARY_ACCENT.darker();
+        private final Color DETAIL_COLOR = new Color(100, 100, 100);
+        private final Color DESCRIPTION_COLOR = new Color(150, 150, 150);
+
+        private final DateTimeFormatter DUE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, HH:mm");
+        private static final int DESCRIPTION_SNIPPET_LENGTH = 60;
+        private static final int MAX_CACHED_ROWS = 10_000;
+        private static final long NOW_REFRESH_MILLIS = 1000;
+
+        private final Font titleFont = new Font("Arial", Font.BOLD, 16);
+        // Completed titles are struck through with a font attribute; HTML would be re-parsed per row
+        private final Font completedTitleFont =
+                titleFont.deriveFont(Map.of(TextAttribute.STRIKETHROUGH, TextAttribute.STRIKETHROUGH_ON));
+
+        private final Border selectedBorder = new EmptyBorder(10, 15, 10, 15);
+        private final Border unselectedBorder = BorderFactory.createCompoundBorder(
+                BorderFactory.createMatteBorder(0, 0, 1, 0, new Color(220, 220, 220)),
+                new EmptyBorder(10, 15, 10, 15));
 
         private JLabel titleLabel;
         private JLabel detailsLabel;
         private JLabel descriptionLabel; // NEW FIELD
         private JPanel textPanel;
         private JPanel statusPanel;
+        private final PriorityDot priorityDot = new PriorityDot();
+        private final JLabel statusLabel = new RendererLabel();
+
+        // Row strings by task id, rebuilt when the task's version moves on
+        private final IntObjectMap<RowText> rowTexts = new IntObjectMap<>();
+        private final String[] priorityTexts = new String[Priority.values().length];
+
+        // Cached clock for the overdue/today status
+        private long nowRefreshedAt;
+        private LocalDateTime now;
+        private LocalDateTime startOfToday;
+        private LocalDateTime startOfTomorrow;
 
         public TaskCellRenderer() {
             setLayout(new BorderLayout(10, 0)); // Increased horizontal gap
-            setBorder(new EmptyBorder(10, 15, 10, 15)); // Increased padding
+            setBorder(unselectedBorder);
             textPanel = new JPanel();
             // Set the textPanel to stack its contents (the three labels) vertically
             textPanel.setLayout(new BoxLayout(textPanel, BoxLayout.Y_AXIS));
             textPanel.setOpaque(false); // Ensure it doesn't cover the background color
             // Title (North)
-            titleLabel = new JLabel();
-            titleLabel.setFont(new Font("Arial", Font.BOLD, 16)); // Slightly larger title
+            titleLabel = new RendererLabel();
+            titleLabel.setFont(titleFont); // Slightly larger title
             add(titleLabel, BorderLayout.NORTH);
 
             // Details (Center)
-            detailsLabel = new JLabel();
+            detailsLabel = new RendererLabel();
             detailsLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-            detailsLabel.setForeground(new Color(100, 100, 100)); // Lighter gray for secondary text
+            detailsLabel.setForeground(DETAIL_COLOR); // Lighter gray for secondary text
             add(detailsLabel, BorderLayout.CENTER);
 
-            descriptionLabel = new JLabel();
+            descriptionLabel = new RendererLabel();
             descriptionLabel.setFont(new Font("Arial", Font.ITALIC, 12));
-            descriptionLabel.setForeground(new Color(150, 150, 150));
+            descriptionLabel.setForeground(DESCRIPTION_COLOR);
             descriptionLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
             // 3. Add Labels to Text Panel
@@ -223,10 +298,17 @@ public class DashboardPanel extends JPanel implements ActionListener {
             // 4. Add Panels to the Main Cell
             // Add the new text stack to the center of the cell
             add(textPanel, BorderLayout.CENTER);
-            // Status Panel (East)
+            // Status Panel (East): the dot and the label are reused, only shown or recolored
             statusPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
             statusPanel.setOpaque(false);
+            statusLabel.setFont(new Font("Arial", Font.BOLD, 12));
+            statusPanel.add(priorityDot);
+            statusPanel.add(statusLabel);
             add(statusPanel, BorderLayout.EAST);
+
+            for (Priority priority : Priority.values()) {
+                priorityTexts[priority.ordinal()] = priority.getValue().toUpperCase();
+            }
         }
 
         @Override
@@ -240,120 +322,121 @@ public class DashboardPanel extends JPanel implements ActionListener {
             // Determine priority dot color and base background color
             if (task.getPriority() == Priority.HIGH) {
                 background = HIGH_COLOR;
-                priorityDotColor = new Color(220, 0, 0);
+                priorityDotColor = HIGH_DOT_COLOR;
             } else if (task.getPriority() == Priority.MEDIUM) {
                 background = MEDIUM_COLOR;
-                priorityDotColor = new Color(200, 100, 0);
+                priorityDotColor = MEDIUM_DOT_COLOR;
             } else {
                 background = LOW_COLOR;
-                priorityDotColor = new Color(0, 150, 0);
+                priorityDotColor = LOW_DOT_COLOR;
             }
 
             if (task.isCompleted()) {
                 background = COMPLETED_COLOR;
-                priorityDotColor = Color.GRAY;
             }
 
             if (isSelected) {
                 // Use primary accent color for selection, but lighter
-                background = PRIMARY_ACCENT.brighter();
+                background = SELECTED_COLOR;
             }
 
             setBackground(background);
 
-            // 2. Prepare Text and Status
-            String titleText = task.getTitle();
-            String dueDateStr = task.getDueDate().format(DateTimeFormatter.ofPattern("MMM dd, HH:mm"));
-
-            statusPanel.removeAll();
+            // 2. Texts come from the cache unless the task changed since it was last drawn
+            RowText text = rowText(task);
+            titleLabel.setText(text.title);
+            titleLabel.setFont(task.isCompleted() ? completedTitleFont : titleFont);
+            detailsLabel.setText(text.details);
+            descriptionLabel.setText(text.description);
 
-            // 3. Add Priority Dot if not completed
-            if (!task.isCompleted()) {
-                statusPanel.add(createColoredDot(priorityDotColor));
-            }
+            // 3. Show the Priority Dot if not completed
+            priorityDot.setVisible(!task.isCompleted());
+            priorityDot.color = priorityDotColor;
 
-            JLabel statusLabel = new JLabel();
-            statusLabel.setFont(new Font("Arial", Font.BOLD, 12));
-
-            // 4. Set Title and Status Label Logic
+            // 4. Status Label Logic
             if (task.isCompleted()) {
-                titleLabel.setText("<html><strike>" + titleText + "</strike></html>"); // Uses HTML for strikethrough
-                statusLabel.setForeground(PRIMARY_ACCENT.darker());
+                statusLabel.setForeground(DONE_COLOR);
                 statusLabel.setText("DONE");
             } else {
-                titleLabel.setText(titleText);
-
-                // Priority/Due Status
-                if (task.isOverdue()) {
-                    statusLabel.setForeground(new Color(180, 0, 0));
+                refreshClock();
+                LocalDateTime due = task.getDueDate();
+                // Same tests as Task.isOverdue / isDueToday, against the cached clock
+                if (now.isAfter(due)) {
+                    statusLabel.setForeground(OVERDUE_COLOR);
                     statusLabel.setText("OVERDUE");
-                } else if (task.isDueToday()) {
-                    statusLabel.setForeground(new Color(0, 100, 0));
+                } else if (!due.isBefore(startOfToday) && due.isBefore(startOfTomorrow)) {
+                    statusLabel.setForeground(TODAY_COLOR);
                     statusLabel.setText("TODAY");
                 } else {
                     statusLabel.setForeground(DARK_TEXT);
-                    statusLabel.setText(task.getPriority().getValue().toUpperCase());
+                    statusLabel.setText(priorityTexts[task.getPriority().ordinal()]);
                 }
             }
 
-            statusPanel.add(statusLabel);
+            // 5. Set final foreground colors
+            titleLabel.setForeground((task.isCompleted() && !isSelected) ? Color.GRAY : (isSelected ? Color.WHITE : DARK_TEXT));
+            detailsLabel.setForeground(isSelected ? Color.WHITE : DETAIL_COLOR);
+            descriptionLabel.setForeground(isSelected ? Color.WHITE : DESCRIPTION_COLOR);
 
-            // 🌟 5. UPDATE: Set Details Label (Line 2) 🌟
-            detailsLabel.setText(String.format("Category: %s | Due: %s", task.getCategory(), dueDateStr));
-
-            // 🌟 6. NEW: Set Description Label (Line 3) 🌟
-            String descriptionSnippet = task.getDescription();
-            if (descriptionSnippet != null && descriptionSnippet.length() > 60) {
-                descriptionSnippet = descriptionSnippet.substring(0, 60) + "...";
-            } else if (descriptionSnippet == null || descriptionSnippet.trim().isEmpty()) {
-                descriptionSnippet = "— No description provided —";
-            }
-            descriptionLabel.setText("Desc: " + descriptionSnippet);
+            // 6. Set borders/padding
+            setBorder(isSelected ? selectedBorder : unselectedBorder);
 
+            statusPanel.setBackground(background);
 
-            // 7. Set final foreground colors
-            Color titleForeground = (task.isCompleted() && !isSelected) ? Color.GRAY : (isSelected ? Color.WHITE : DARK_TEXT);
-            Color detailForeground = (isSelected) ? Color.WHITE : new Color(100, 100, 100);
-            Color descriptionForeground = (isSelected) ? Color.WHITE : new Color(150, 150, 150);
+            // The labels skip revalidate (see RendererLabel), so request the new layout here
+            textPanel.invalidate();
+            statusPanel.invalidate();
 
-            titleLabel.setForeground(titleForeground);
-            detailsLabel.setForeground(detailForeground);
-            descriptionLabel.setForeground(descriptionForeground); // Set new label color
+            return this;
+        }
 
-            // 8. Set borders/padding
-            if (!isSelected) {
-                Border lineBorder = BorderFactory.createMatteBorder(0, 0, 1, 0, new Color(220, 220, 220));
-                setBorder(BorderFactory.createCompoundBorder(lineBorder, new EmptyBorder(10, 15, 10, 15)));
-            } else {
-                setBorder(new EmptyBorder(10, 15, 10, 15));
+        private RowText rowText(Task task) {
+            RowText text = rowTexts.get(task.getId());
+            // Another Task object under the same id (e.g. reloaded after an eviction) restarts its versions
+            if (text == null || text.task != task || text.version != task.getVersion()) {
+                if (text == null && rowTexts.size() >= MAX_CACHED_ROWS) {
+                    rowTexts.clear(); // Mostly rows of deleted tasks or other filters by now
+                }
+                text = new RowText(task);
+                rowTexts.put(task.getId(), text);
             }
+            return text;
+        }
 
-            statusPanel.setBackground(background);
-            // Ensure the text panel also has the correct background (for full transparency)
-            // If you used the fix for the constructor, textPanel.setOpaque(false) already handles this
-
-            return this;
+        private void refreshClock() {
+            long millis = System.currentTimeMillis();
+            if (now == null || millis - nowRefreshedAt >= NOW_REFRESH_MILLIS) {
+                nowRefreshedAt = millis;
+                now = LocalDateTime.now();
+                startOfToday = now.toLocalDate().atStartOfDay();
+                startOfTomorrow = startOfToday.plusDays(1);
+            }
         }
 
-        private JPanel createColoredDot(Color color) {
-            JPanel dot = new JPanel() {
-                @Override
-                protected void paintComponent(Graphics g) {
-                    super.paintComponent(g);
-                    // Use anti-aliasing for smooth circles
-                    Graphics2D g2d = (Graphics2D) g;
-                    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                    g2d.setColor(color);
-                    g2d.fillOval(0, 0, getWidth(), getHeight());
-                }
-                @Override
-                public Dimension getPreferredSize() {
-                    return new Dimension(10, 10); // Slightly larger dot
+        /**
+         * The strings of one row, as of one version of the task.
+         */
+        private class RowText {
+            final Task task;
+            final int version;
+            final String title;
+            final String details;
+            final String description;
+
+            RowText(Task task) {
+                this.task = task;
+                version = task.getVersion();
+                title = task.getTitle();
+                details = "Category: " + task.getCategory() + " | Due: " + task.getDueDate().format(DUE_FORMAT);
+
+                String descriptionSnippet = task.getDescription();
+                if (descriptionSnippet != null && descriptionSnippet.length() > DESCRIPTION_SNIPPET_LENGTH) {
+                    descriptionSnippet = descriptionSnippet.substring(0, DESCRIPTION_SNIPPET_LENGTH) + "...";
+                } else if (descriptionSnippet == null || descriptionSnippet.trim().isEmpty()) {
+                    descriptionSnippet = "— No description provided —";
                 }
-            };
-            dot.setOpaque(false);
-            return dot;
+                description = "Desc: " + descriptionSnippet;
+            }
         }
 
         public void setTextPanel(JPanel textPanel) {
@@ -361,16 +444,72 @@ public class DashboardPanel extends JPanel implements ActionListener {
         }
     }
 
+    /**
+     * A label for renderer use. Like DefaultListCellRenderer, it drops the repaint,
+     * revalidate and property-change events that setText and setForeground would
+     * fire on every call, since a renderer is only ever painted through the list.
+     * Only the changes the HTML view depends on are still published.
+     */
+    private static class RendererLabel extends JLabel {
+        @Override
+        protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+            boolean html = getClientProperty(javax.swing.plaf.basic.BasicHTML.propertyKey) != null;
+            if ("text".equals(propertyName)
+                    || (html && oldValue != newValue && ("font".equals(propertyName) || "foreground".equals(propertyName)))) {
+                super.firePropertyChange(propertyName, oldValue, newValue);
+            }
+        }
+
+        @Override
+        public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {}
+
+        @Override
+        public void revalidate() {}
+
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {}
+
+        @Override
+        public void repaint(Rectangle r) {}
+
+        @Override
+        public void repaint() {}
+    }
+
+    /**
+     * The round priority marker of a row, recolored instead of recreated.
+     */
+    private static class PriorityDot extends JComponent {
+        private static final Dimension SIZE = new Dimension(10, 10); // Slightly larger dot
+        private Color color = Color.GRAY;
+
+        PriorityDot() {
+            setOpaque(false);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            // Use anti-aliasing for smooth circles
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setColor(color);
+            g2d.fillOval(0, 0, getWidth(), getHeight());
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            return SIZE;
+        }
+    }
+
     // --- Action and Logic Methods (Unchanged Logic, but cleaner code structure) ---
 
     private void loadTasks() {
-        listModel.clear();
-        List<Task> studentTasks = taskManager.getTasksByStudent(currentStudent.getEmail(),
+        List<Task> studentTasks = taskManager.searchTasks(currentStudent.getEmail(),
+                searchField.getText(),
                 currentCategoryFilter,
                 currentPriorityFilter);
-        for (Task task : studentTasks) {
-            listModel.addElement(task);
-        }
+        listModel.setTasks(studentTasks); // Fires only the rows that differ from the last refresh
         updateStats();
     }
 
@@ -382,6 +521,20 @@ public class DashboardPanel extends JPanel implements ActionListener {
         ));
     }
 
+    // Called on the persistence thread
+    private void onPersistFailed(int records, IOException error) {
+        SwingUtilities.invokeLater(() -> {
+            if (persistErrorShown) {
+                return;
+            }
+            persistErrorShown = true;
+            JOptionPane.showMessageDialog(this, "Could not save your latest changes: " + error.getMessage()
+                    + "\nThey are kept in memory and will be saved again with the next change.",
+                    "Save Error", JOptionPane.WARNING_MESSAGE);
+            persistErrorShown = false;
+        });
+    }
+
     private void showAddTaskDialog() {
         JTextField titleField = new JTextField(20);
         JTextField descField = new JTextField(20);
@@ -549,6 +702,8 @@ public class DashboardPanel extends JPanel implements ActionListener {
         } else if (e.getSource() == editTaskButton) { // ADDED
             showEditTaskDialog();
         } else if (e.getSource() == logoutButton) {
+            taskManager.removePersistenceListener(persistenceListener);
+            studentPin.close();
             controller.logout();
         } else if (e.getSource() == categoryFilterBox) {
             currentCategoryFilter = (String) categoryFilterBox.getSelectedItem();
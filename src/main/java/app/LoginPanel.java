@@ -105,6 +105,9 @@ public class LoginPanel extends JPanel implements ActionListener {
                 JOptionPane.showMessageDialog(this, "Invalid Email Format.", "Error", JOptionPane.ERROR_MESSAGE);
             } else if (!AuthManager.isValidPassword(pass)) {
                 JOptionPane.showMessageDialog(this, "Password must be at least 6 characters.", "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (!AuthManager.isValidField(firstName.getText()) || !AuthManager.isValidField(lastName.getText())
+                    || !AuthManager.isValidField(studentId.getText()) || !AuthManager.isValidField(major.getText())) {
+                JOptionPane.showMessageDialog(this, "Names, Student ID and Major must not contain '|'.", "Error", JOptionPane.ERROR_MESSAGE);
             } else if (authManager.register(firstName.getText().trim(), lastName.getText().trim(), email.getText().trim(),
                     studentId.getText().trim(), major.getText().trim(), pass)) {
                 JOptionPane.showMessageDialog(this, "Registration successful! You can now log in.", "Success", JOptionPane.INFORMATION_MESSAGE);
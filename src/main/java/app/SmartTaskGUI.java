@@ -1,16 +1,21 @@
 package app;
 
 import auth.AuthManager;
+import models.ReminderScheduler;
 import models.Student;
+import models.Task;
+import models.TaskIndex;
 import models.TaskManager;
 
 import javax.swing.*;
 import java.awt.*;
+import java.time.Duration;
 
 public class SmartTaskGUI {
 
     private final AuthManager authManager;
     private final TaskManager taskManager;
+    private final ReminderScheduler reminders;
     private Student currentStudent;
 
     private JFrame mainFrame;
@@ -19,6 +24,9 @@ public class SmartTaskGUI {
         // Initialize backend (managers handle their own file loading)
         this.authManager = new AuthManager();
         this.taskManager = new TaskManager();
+        this.reminders = ReminderScheduler.create(taskManager);
+        reminders.addListener(this::onReminder);
+        reminders.start();
 
         // 1. Setup the Main Window (JFrame)
         mainFrame = new JFrame("SmartTask To-Do App");
@@ -59,6 +67,29 @@ public class SmartTaskGUI {
         showLoginView();
     }
 
+    // Called on the reminder timer thread
+    private void onReminder(Task task, Duration lead) {
+        SwingUtilities.invokeLater(() -> {
+            // Only remind the student who is logged in
+            if (currentStudent == null || !TaskIndex.normalizeEmail(currentStudent.getEmail())
+                    .equals(TaskIndex.normalizeEmail(task.getStudentEmail()))) {
+                return;
+            }
+            String when = lead.isZero() ? "now" : "in " + formatLead(lead);
+            JOptionPane.showMessageDialog(mainFrame, "\"" + task.getTitle() + "\" is due " + when + ".",
+                    "Task Reminder", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
+    private static String formatLead(Duration lead) {
+        if (lead.toDays() > 0 && lead.toHoursPart() == 0 && lead.toMinutesPart() == 0) {
+            return lead.toDays() + (lead.toDays() == 1 ? " day" : " days");
+        } else if (lead.toHours() > 0 && lead.toMinutesPart() == 0) {
+            return lead.toHours() + (lead.toHours() == 1 ? " hour" : " hours");
+        }
+        return lead.toMinutes() + (lead.toMinutes() == 1 ? " minute" : " minutes");
+    }
+
     // --- Main Method to start the Swing Application ---
     public static void main(String[] args) {
         SwingUtilities.invokeLater(SmartTaskGUI::new);
@@ -0,0 +1,85 @@
+package app;
+
+import models.Task;
+
+import javax.swing.AbstractListModel;
+import java.util.List;
+
+/**
+ * TaskListModel - JList model over a sorted task query result.
+ *
+ * setTasks() compares the new result with the one on screen and fires one event per
+ * kind of change instead of one per element: the common prefix and suffix are left
+ * alone, the differing middle is reported as a changed range, plus one inserted or
+ * removed range for the difference in length. A refresh where nothing changed fires
+ * nothing, and an added, deleted or edited task repaints only the rows it moved.
+ *
+ * Tasks are edited in place, so each row remembers the task's version from the last
+ * refresh to notice edits to the same object. Swing models are used on the EDT only.
+ */
+public class TaskListModel extends AbstractListModel<Task> {
+    private static final Task[] EMPTY_TASKS = new Task[0];
+    private static final int[] EMPTY_VERSIONS = new int[0];
+
+    private Task[] tasks = EMPTY_TASKS;
+    private int[] versions = EMPTY_VERSIONS;
+
+    @Override
+    public int getSize() {
+        return tasks.length;
+    }
+
+    @Override
+    public Task getElementAt(int index) {
+        return tasks[index];
+    }
+
+    /**
+     * Replaces the contents with a new query result, firing only the differences.
+     * @param newTasks The new contents, in display order. The list is copied.
+     */
+    public void setTasks(List<Task> newTasks) {
+        Task[] oldTasks = tasks;
+        int[] oldVersions = versions;
+        Task[] nextTasks = newTasks.toArray(EMPTY_TASKS);
+        int[] nextVersions = new int[nextTasks.length];
+        for (int i = 0; i < nextTasks.length; i++) {
+            nextVersions[i] = nextTasks[i].getVersion();
+        }
+
+        int oldSize = oldTasks.length;
+        int newSize = nextTasks.length;
+        int prefix = 0;
+        int limit = Math.min(oldSize, newSize);
+        while (prefix < limit && same(oldTasks, oldVersions, prefix, nextTasks, nextVersions, prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        limit -= prefix;
+        while (suffix < limit && same(oldTasks, oldVersions, oldSize - 1 - suffix,
+                nextTasks, nextVersions, newSize - 1 - suffix)) {
+            suffix++;
+        }
+
+        tasks = nextTasks;
+        versions = nextVersions;
+
+        // Rows [prefix, oldEnd) were replaced by rows [prefix, newEnd)
+        int oldEnd = oldSize - suffix;
+        int newEnd = newSize - suffix;
+        int changedEnd = Math.min(oldEnd, newEnd);
+        if (changedEnd > prefix) {
+            fireContentsChanged(this, prefix, changedEnd - 1);
+        }
+        if (newEnd > oldEnd) {
+            fireIntervalAdded(this, oldEnd, newEnd - 1);
+        } else if (oldEnd > newEnd) {
+            fireIntervalRemoved(this, newEnd, oldEnd - 1);
+        }
+    }
+
+    private static boolean same(Task[] oldTasks, int[] oldVersions, int oldIndex,
+                                Task[] newTasks, int[] newVersions, int newIndex) {
+        return oldTasks[oldIndex] == newTasks[newIndex] && oldVersions[oldIndex] == newVersions[newIndex];
+    }
+}
@@ -3,9 +3,15 @@ package auth;
 import models.Student;
 import utils.FileHandler;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -13,60 +19,126 @@ import java.util.stream.Collectors;
 /**
  * AuthManager - Handles all user (Student) authentication logic,
  * including registration, login, and persistence of user data to a file.
+ *
+ * Last-login timestamps are buffered according to a LoginFlushPolicy, configurable
+ * with -Dsmarttask.login.flush=immediate|batched|on_shutdown and
+ * -Dsmarttask.login.flushSeconds=N. Registration is always written right away.
  */
 public class AuthManager {
     private List<Student> students;
+    // Case-folded email -> student, so lookups don't scan the list
+    private Map<String, Student> studentsByEmail;
     // Changed to 'final' to address the IDE warning
     private final FileHandler fileHandler;
+    private final PasswordHasher passwordHasher;
+    private final SessionCache sessions;
     private static final String STUDENTS_FILE = "students.txt";
+    private static final long DEFAULT_FLUSH_SECONDS = 30;
+
+    private final LoginFlushPolicy flushPolicy;
+    private final ScheduledExecutorService flushScheduler;
+    // Set when a login changed a timestamp that hasn't been written yet
+    private boolean dirty;
 
     public AuthManager() {
+        this(LoginFlushPolicy.fromString(System.getProperty("smarttask.login.flush")),
+                Duration.ofSeconds(Long.getLong("smarttask.login.flushSeconds", DEFAULT_FLUSH_SECONDS)));
+    }
+
+    /**
+     * @param flushPolicy When to write last-login timestamps.
+     * @param flushInterval How often BATCHED mode flushes pending logins.
+     */
+    public AuthManager(LoginFlushPolicy flushPolicy, Duration flushInterval) {
+        this(new FileHandler(), flushPolicy, flushInterval);
+    }
+
+    /**
+     * @param fileHandler Where students.txt lives.
+     * @param flushPolicy When to write last-login timestamps.
+     * @param flushInterval How often BATCHED mode flushes pending logins.
+     */
+    public AuthManager(FileHandler fileHandler, LoginFlushPolicy flushPolicy, Duration flushInterval) {
         // fileHandler must be initialized here since it's final
-        this.fileHandler = new FileHandler();
+        this.fileHandler = fileHandler;
+        this.passwordHasher = new PasswordHasher();
+        this.sessions = new SessionCache();
         this.students = new ArrayList<>();
+        this.studentsByEmail = new HashMap<>();
+        this.flushPolicy = flushPolicy;
         loadStudents();
+
+        if (flushPolicy == LoginFlushPolicy.BATCHED) {
+            this.flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "login-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1, flushInterval.toMillis());
+            flushScheduler.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flushScheduler = null;
+        }
+        if (flushPolicy != LoginFlushPolicy.IMMEDIATE) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "login-flush-shutdown"));
+        }
+    }
+
+    private static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
      * Loads student data from the file system.
      */
-    public void loadStudents() {
+    public synchronized void loadStudents() {
         try {
-            // NOTE: This call now throws IOException (must be implemented in FileHandler)
-            List<String> lines = fileHandler.readFile(STUDENTS_FILE);
-            this.students = lines.stream()
-                    .map(Student::fromFileString)
-                    // Changed lambda to method reference to address IDE warning
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+            // Streamed line by line, so the raw file is never held in memory next to the list
+            List<Student> loaded = new ArrayList<>();
+            fileHandler.forEachLine(STUDENTS_FILE, line -> {
+                Student student = Student.fromFileString(line);
+                if (student != null) {
+                    loaded.add(student);
+                }
+            });
+            this.students = loaded;
         } catch (IOException e) {
             // The try-catch block is now correct because FileHandler throws IOException
             System.err.println("Error loading student data: " + e.getMessage());
             this.students = new ArrayList<>();
         }
+        Map<String, Student> previous = this.studentsByEmail;
+        this.studentsByEmail = new HashMap<>();
+        for (Student student : students) {
+            // Keep the first record if the file has case-variant duplicates, as the old scan did
+            studentsByEmail.putIfAbsent(normalizeEmail(student.getEmail()), student);
+        }
+        if (previous != null) {
+            // Students no longer on file must not stay logged in
+            for (Map.Entry<String, Student> entry : previous.entrySet()) {
+                if (!studentsByEmail.containsKey(entry.getKey())) {
+                    sessions.closeAll(entry.getValue());
+                }
+            }
+        }
     }
 
     /**
      * Saves all current student data to the file system.
      */
-    private void saveStudents() {
+    private synchronized void saveStudents() {
         try {
             List<String> lines = students.stream()
                     .map(Student::toFileString)
                     .collect(Collectors.toList());
             // NOTE: This call now throws IOException (must be implemented in FileHandler)
             fileHandler.writeFile(STUDENTS_FILE, lines);
+            dirty = false;
         } catch (IOException e) {
             System.err.println("Error saving student data: " + e.getMessage());
         }
     }
 
-    // A placeholder for a simple password hash (in a real app, use BCrypt)
-    private String hashPassword(String password) {
-        // Simple shift/scramble for illustration in a Java-only app
-        return new StringBuilder(password).reverse().toString();
-    }
-
     /**
      * Registers a new student and saves data.
      * @param firstName Student's first name.
@@ -80,13 +152,19 @@ public class AuthManager {
     public boolean register(String firstName, String lastName, String email,
                             String studentId, String major, String password) {
         if (emailExists(email)) {
-            return false;
+            return false; // Spares the hash for an email that is taken already
         }
-
-        String hashedPassword = hashPassword(password);
+        // Hash outside the lock so logins don't queue behind a registration
+        String hashedPassword = passwordHasher.hash(password);
         Student newStudent = new Student(email, firstName, lastName, studentId, major, hashedPassword);
-        students.add(newStudent);
-        saveStudents();
+        synchronized (this) {
+            if (emailExists(email)) {
+                return false; // Registered by another thread while we hashed
+            }
+            students.add(newStudent);
+            studentsByEmail.put(normalizeEmail(email), newStudent);
+            saveStudents();
+        }
         return true;
     }
 
@@ -97,19 +175,80 @@ public class AuthManager {
      * @return The Student object if login is successful, or null otherwise.
      */
     public Student login(String email, String password) {
-        String hashedPasswordAttempt = hashPassword(password);
-
-        for (Student student : students) {
-            if (student.getEmail().equalsIgnoreCase(email) &&
-                    student.getHashedPassword().equals(hashedPasswordAttempt)) {
+        Student student;
+        String storedHash;
+        synchronized (this) {
+            student = studentsByEmail.get(normalizeEmail(email));
+            if (student == null) {
+                return null;
+            }
+            storedHash = student.getHashedPassword();
+        }
+        // Hash outside the lock so concurrent logins don't queue behind each other
+        if (!passwordHasher.verify(password, storedHash)) {
+            return null;
+        }
+        String upgradedHash = passwordHasher.needsRehash(storedHash) ? passwordHasher.hash(password) : null;
 
-                // This method must exist in the User/Student class (which we added in the previous step)
-                student.updateLastLogin();
+        synchronized (this) {
+            // This method must exist in the User/Student class (which we added in the previous step)
+            student.updateLastLogin();
+            if (upgradedHash != null) {
+                // Upgrade legacy or weaker hashes while the plain password is at hand, durably
+                student.setHashedPassword(upgradedHash);
+                saveStudents();
+            } else if (flushPolicy == LoginFlushPolicy.IMMEDIATE) {
                 saveStudents();
-                return student;
+            } else {
+                dirty = true;
             }
         }
-        return null;
+        return student;
+    }
+
+    /**
+     * Writes any buffered last-login timestamps to disk.
+     */
+    public synchronized void flush() {
+        if (dirty) {
+            saveStudents();
+        }
+    }
+
+    /**
+     * Flushes pending logins and stops the background flush timer.
+     */
+    public void close() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+        }
+        flush();
+    }
+
+    /**
+     * Logs in a user and opens a session, so later requests can skip the password hash.
+     * @param email The user's email.
+     * @param password The user's password.
+     * @return The session token if login is successful, or null otherwise.
+     */
+    public String loginSession(String email, String password) {
+        Student student = login(email, password);
+        return student == null ? null : sessions.open(student);
+    }
+
+    /**
+     * Resolves a session token opened by loginSession.
+     * @return The logged-in Student, or null if the session is unknown or expired.
+     */
+    public Student getSessionStudent(String token) {
+        return sessions.resolve(token);
+    }
+
+    /**
+     * Ends a session opened by loginSession.
+     */
+    public void logout(String token) {
+        sessions.close(token);
     }
 
     /**
@@ -117,9 +256,8 @@ public class AuthManager {
      * @param email The email to check.
      * @return true if the email is found in the student list, false otherwise.
      */
-    public boolean emailExists(String email) {
-        return students.stream()
-                .anyMatch(s -> s.getEmail().equalsIgnoreCase(email));
+    public synchronized boolean emailExists(String email) {
+        return studentsByEmail.containsKey(normalizeEmail(email));
     }
 
     // --- Static Utility Methods ---
@@ -140,4 +278,17 @@ public class AuthManager {
     public static boolean isValidPassword(String password) {
         return password != null && password.length() >= 6;
     }
+
+    /**
+     * Validates a free-text registration field such as a name, student ID or major.
+     * The students file is '|'-separated and line-based, so neither may appear.
+     */
+    public static boolean isValidField(String field) {
+        if (field == null) return false;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '|' || Character.isISOControl(c)) return false;
+        }
+        return true;
+    }
 }
@@ -0,0 +1,25 @@
+package auth;
+
+/**
+ * LoginFlushPolicy - How eagerly last-login timestamps are written to students.txt.
+ *
+ * Registrations and password hash upgrades are always written immediately;
+ * this only governs the lastLoginAt update done on every successful login.
+ */
+public enum LoginFlushPolicy {
+    /** Rewrite students.txt on every login. Nothing is lost on a crash. */
+    IMMEDIATE,
+    /** Buffer logins in memory and flush on a timer and at shutdown. A crash loses at most one interval. */
+    BATCHED,
+    /** Buffer logins until shutdown or an explicit flush. A crash loses every login since start-up. */
+    ON_SHUTDOWN;
+
+    public static LoginFlushPolicy fromString(String text) {
+        for (LoginFlushPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(text)) {
+                return policy;
+            }
+        }
+        return BATCHED; // Default if unset or invalid
+    }
+}
@@ -0,0 +1,113 @@
+package auth;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PasswordHasher - Salted PBKDF2 password hashing using only the JDK.
+ *
+ * Hashes are stored as "pbkdf2$iterations$salt$hash" (salt and hash in Base64),
+ * so the cost can be raised later without invalidating existing accounts.
+ * Hashes from the old reversed-string scheme are still accepted and reported
+ * by needsRehash() so they can be upgraded on the next successful login.
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2";
+    private static final String SEPARATOR = "$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher() {
+        this(Integer.getInteger("smarttask.pbkdf2.iterations", DEFAULT_ITERATIONS));
+    }
+
+    /**
+     * @param iterations The PBKDF2 work factor used for new hashes.
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Hashes a password with a fresh random salt.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return String.join(SEPARATOR, PREFIX, String.valueOf(iterations),
+                encoder.encodeToString(salt), encoder.encodeToString(hash));
+    }
+
+    /**
+     * Checks a password against a stored hash in constant time.
+     */
+    public boolean verify(String password, String storedHash) {
+        if (password == null || storedHash == null) {
+            return false;
+        }
+        if (!isPbkdf2(storedHash)) {
+            // Legacy scheme: the password reversed
+            byte[] legacy = new StringBuilder(password).reverse().toString().getBytes(StandardCharsets.UTF_8);
+            return MessageDigest.isEqual(legacy, storedHash.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = storedHash.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error parsing password hash: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a stored hash uses an old scheme or a lower cost than configured.
+     */
+    public boolean needsRehash(String storedHash) {
+        if (storedHash == null || !isPbkdf2(storedHash)) {
+            return true;
+        }
+        String[] parts = storedHash.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean isPbkdf2(String storedHash) {
+        return storedHash.startsWith(PREFIX + SEPARATOR);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // PBKDF2WithHmacSHA256 is mandatory on every Java SE platform
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
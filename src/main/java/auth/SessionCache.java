@@ -0,0 +1,126 @@
+package auth;
+
+import models.Student;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SessionCache - Remembers students whose password was already verified.
+ *
+ * A successful login hands out a random token. Presenting that token later
+ * resolves the student directly, so the expensive password hash only runs
+ * once per login instead of once per request.
+ *
+ * Every session lives for the same TTL, so the order sessions were opened in is
+ * also the order they expire in. open() drops expired sessions from the front of
+ * that order, and the oldest live ones once more than maxSessions are open.
+ */
+public class SessionCache {
+    private static final int TOKEN_BYTES = 32;
+    public static final Duration DEFAULT_TTL = Duration.ofHours(8);
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // Tokens in the order they were opened; may still hold tokens already closed
+    private final Queue<String> opened = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger openedCount = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+    private final int maxSessions;
+
+    public SessionCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SESSIONS);
+    }
+
+    public SessionCache(Duration ttl, int maxSessions) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxSessions = Math.max(1, maxSessions);
+    }
+
+    /**
+     * Opens a session for a verified student.
+     * @return The session token.
+     */
+    public String open(Student student) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        sessions.put(token, new Session(student, now + ttlMillis));
+        opened.add(token);
+        openedCount.incrementAndGet();
+        purge(now);
+        return token;
+    }
+
+    /**
+     * Drops sessions from the front of the open order while they are expired or
+     * already closed, or while more sessions are open than the bound allows.
+     */
+    private void purge(long now) {
+        String token;
+        while ((token = opened.peek()) != null) {
+            Session session = sessions.get(token);
+            boolean drop = session == null || session.expiresAt < now
+                    || sessions.size() > maxSessions
+                    // Closed tokens behind a live one are only dropped once they pile up
+                    || openedCount.get() > 2 * maxSessions;
+            if (!drop || !opened.remove(token)) {
+                break;
+            }
+            openedCount.decrementAndGet();
+            if (session != null) {
+                sessions.remove(token, session);
+            }
+        }
+    }
+
+    /**
+     * Resolves a session token.
+     * @return The student, or null if the token is unknown or expired.
+     */
+    public Student resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (session.expiresAt < System.currentTimeMillis()) {
+            sessions.remove(token, session);
+            return null;
+        }
+        return session.student;
+    }
+
+    public void close(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Drops every session of a student, e.g. when the student is removed.
+     */
+    public void closeAll(Student student) {
+        sessions.values().removeIf(s -> s.student.equals(student));
+    }
+
+    private static class Session {
+        private final Student student;
+        private final long expiresAt;
+
+        Session(Student student, long expiresAt) {
+            this.student = student;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
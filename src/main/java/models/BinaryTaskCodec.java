@@ -0,0 +1,342 @@
+package models;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import utils.FileHandler;
+
+/**
+ * BinaryTaskCodec - Compact, length-prefixed binary storage for tasks.
+ *
+ * File layout:
+ *   magic "STSK", u8 version
+ *   varint emailCount,    emailCount strings      (email dictionary)
+ *   varint categoryCount, categoryCount strings   (category dictionary)
+ *   varint taskCount,     taskCount records
+ *
+ * Record: varint payloadLength, then
+ *   varint id, varint emailCode, string title, string description,
+ *   varint categoryCode, u8 flags (bits 0-1 priority ordinal, bit 7 completed),
+ *   i64 createdAt epoch second, varint createdAt nano,
+ *   i64 dueDate epoch second, varint dueDate nano
+ *
+ * Strings are a varint of (UTF-8 length + 1) followed by the bytes, 0 meaning null.
+ * Timestamps are LocalDateTime epoch seconds taken at UTC, a fixed reference only.
+ * Journal records use the same payload with the email and category written inline
+ * instead of as dictionary codes, Base64-encoded to fit on one line. Unlike the text
+ * format, descriptions containing '|' survive unchanged.
+ */
+public class BinaryTaskCodec implements TaskCodec {
+    private static final byte[] MAGIC = {'S', 'T', 'S', 'K'};
+    private static final int VERSION = 1;
+    private static final int COMPLETED_FLAG = 0x80;
+    private static final int PRIORITY_MASK = 0x03;
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values();
+
+    @Override
+    public String getFileExtension() {
+        return "bin";
+    }
+
+    @Override
+    public int read(FileHandler fileHandler, String filename, Consumer<Task> sink) throws IOException {
+        InputStream stream = fileHandler.openInputStream(filename);
+        if (stream == null) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(stream)) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a binary task file: " + filename);
+            }
+            int version = in.readUnsignedByte();
+            if (version > VERSION) {
+                throw new IOException("Unsupported binary task file version " + version + ": " + filename);
+            }
+
+            String[] emails = readDictionary(in);
+            String[] categories = readDictionary(in);
+            int count = readVarInt(in);
+            int maxId = 0;
+            RecordReader reader = new RecordReader();
+            for (int i = 0; i < count; i++) {
+                reader.load(in, readVarInt(in));
+                Task task = reader.readTask(emails, categories);
+                sink.accept(task);
+                maxId = Math.max(maxId, task.getId());
+            }
+            return maxId;
+        } catch (EOFException e) {
+            throw new IOException("Truncated binary task file: " + filename, e);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt binary task file: " + filename, e);
+        }
+    }
+
+    @Override
+    public void write(FileHandler fileHandler, String filename, Collection<Task> tasks) throws IOException {
+        Map<String, Integer> emailCodes = new HashMap<>();
+        Map<String, Integer> categoryCodes = new HashMap<>();
+        List<String> emails = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        for (Task task : tasks) {
+            emailCodes.computeIfAbsent(task.getStudentEmail(), k -> { emails.add(k); return emails.size() - 1; });
+            categoryCodes.computeIfAbsent(task.getCategory(), k -> { categories.add(k); return categories.size() - 1; });
+        }
+
+        fileHandler.writeFile(filename, out -> {
+            RecordWriter header = new RecordWriter();
+            header.writeBytes(MAGIC);
+            header.writeByte(VERSION);
+            writeDictionary(header, emails);
+            writeDictionary(header, categories);
+            header.writeVarInt(tasks.size());
+            header.writeTo(out);
+
+            RecordWriter record = new RecordWriter();
+            RecordWriter length = new RecordWriter();
+            for (Task task : tasks) {
+                record.reset();
+                record.writeTask(task, emailCodes.get(task.getStudentEmail()), categoryCodes.get(task.getCategory()));
+                length.reset();
+                length.writeVarInt(record.size);
+                length.writeTo(out);
+                record.writeTo(out);
+            }
+        });
+    }
+
+    @Override
+    public String encodeRecord(Task task) {
+        RecordWriter record = new RecordWriter();
+        record.writeTask(task, -1, -1);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(record.buffer, record.size));
+    }
+
+    @Override
+    public Task decodeRecord(String encoded) {
+        try {
+            RecordReader reader = new RecordReader();
+            reader.buffer = Base64.getDecoder().decode(encoded);
+            reader.limit = reader.buffer.length;
+            return reader.readTask(null, null);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("Error decoding binary task record: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // --- Dictionaries ---
+
+    private static void writeDictionary(RecordWriter out, List<String> entries) {
+        out.writeVarInt(entries.size());
+        for (String entry : entries) {
+            out.writeString(entry);
+        }
+    }
+
+    private static String[] readDictionary(DataInputStream in) throws IOException {
+        String[] entries = new String[readVarInt(in)];
+        RecordReader reader = new RecordReader();
+        for (int i = 0; i < entries.length; i++) {
+            int encodedLength = readVarInt(in);
+            if (encodedLength == 0) {
+                continue; // null entry
+            }
+            reader.load(in, encodedLength - 1);
+            entries[i] = new String(reader.buffer, 0, reader.limit, StandardCharsets.UTF_8);
+        }
+        return entries;
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Growable byte buffer that encodes one record at a time.
+     */
+    private static class RecordWriter {
+        private byte[] buffer = new byte[256];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + extra));
+            }
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarInt(value.getNano());
+        }
+
+        // Negative codes mean "no dictionary": the string is written inline
+        void writeTask(Task task, int emailCode, int categoryCode) {
+            writeVarInt(task.getId());
+            if (emailCode >= 0) {
+                writeVarInt(emailCode);
+            } else {
+                writeString(task.getStudentEmail());
+            }
+            writeString(task.getTitle());
+            writeString(task.getDescription());
+            if (categoryCode >= 0) {
+                writeVarInt(categoryCode);
+            } else {
+                writeString(task.getCategory());
+            }
+            writeByte(task.getPriority().ordinal() | (task.isCompleted() ? COMPLETED_FLAG : 0));
+            writeDateTime(task.getCreatedAt());
+            writeDateTime(task.getDueDate());
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buffer, 0, size);
+        }
+    }
+
+    /**
+     * Cursor over the payload of one record.
+     */
+    private static class RecordReader {
+        private byte[] buffer = new byte[256];
+        private int limit;
+        private int pos;
+
+        void load(DataInputStream in, int length) throws IOException {
+            if (length > buffer.length) {
+                buffer = new byte[Math.max(buffer.length << 1, length)];
+            }
+            in.readFully(buffer, 0, length);
+            limit = length;
+            pos = 0;
+        }
+
+        private int readByte() {
+            if (pos >= limit) {
+                throw new IndexOutOfBoundsException("Record ends unexpectedly");
+            }
+            return buffer[pos++] & 0xFF;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IndexOutOfBoundsException("Malformed varint");
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        String readString() {
+            int encodedLength = readVarInt();
+            if (encodedLength == 0) {
+                return null;
+            }
+            int length = encodedLength - 1;
+            if (pos + length > limit) {
+                throw new IndexOutOfBoundsException("String runs past the record");
+            }
+            String value = new String(buffer, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        LocalDateTime readDateTime() {
+            long epochSecond = readLong();
+            return LocalDateTime.ofEpochSecond(epochSecond, readVarInt(), ZoneOffset.UTC);
+        }
+
+        // Null dictionaries mean the strings are inline
+        Task readTask(String[] emails, String[] categories) {
+            Task task = new Task();
+            task.setId(readVarInt());
+            task.setStudentEmail(emails != null ? emails[readVarInt()] : readString());
+            task.setTitle(readString());
+            task.setDescription(readString());
+            task.setCategory(categories != null ? categories[readVarInt()] : readString());
+            int flags = readByte();
+            task.setPriority(PRIORITIES[flags & PRIORITY_MASK]);
+            task.setCompleted((flags & COMPLETED_FLAG) != 0);
+            task.setCreatedAt(readDateTime());
+            task.setDueDate(readDateTime());
+            return task;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package models;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Category - Interned task category.
+ *
+ * There is exactly one Category per name, ignoring case, so tasks share it and
+ * categories compare by identity. Each also carries a dense id for array-indexed
+ * lookups. The names in TaskManager.CATEGORIES are registered first and keep their
+ * spelling, so "lab" becomes "Lab"; any other name is registered on first use with
+ * the spelling it arrived in.
+ */
+public final class Category {
+    // Keyed by lowercase name; defines the instances
+    private static final Map<String, Category> BY_KEY = new ConcurrentHashMap<>();
+    // Keyed by every spelling seen, so lookups of a known spelling need no lowercasing
+    private static final Map<String, Category> BY_NAME = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    static {
+        // Index 0 is the "All" filter, not a category
+        for (int i = 1; i < TaskManager.CATEGORIES.length; i++) {
+            of(TaskManager.CATEGORIES[i]);
+        }
+    }
+
+    private final int id;
+    private final String name;
+
+    private Category(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Returns the category with this name (case-insensitive), registering it if new.
+     * @return The category, or null for a null name.
+     */
+    public static Category of(String name) {
+        if (name == null) {
+            return null;
+        }
+        Category category = BY_NAME.get(name);
+        if (category == null) {
+            category = BY_KEY.computeIfAbsent(name.toLowerCase(Locale.ROOT),
+                    k -> new Category(NEXT_ID.getAndIncrement(), name));
+            BY_NAME.putIfAbsent(name, category);
+        }
+        return category;
+    }
+
+    /**
+     * Returns the category with this name (case-insensitive) without registering it.
+     * @return The category, or null if no task ever used the name.
+     */
+    public static Category find(String name) {
+        if (name == null) {
+            return null;
+        }
+        Category category = BY_NAME.get(name);
+        return category != null ? category : BY_KEY.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * A dense id, 0 for the first category registered.
+     */
+    public int getId() { return id; }
+
+    public String getName() { return name; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
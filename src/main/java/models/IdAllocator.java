@@ -0,0 +1,139 @@
+package models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import utils.FileHandler;
+
+/**
+ * IdAllocator - Hands out task ids that are never reused, even across restarts.
+ *
+ * With every task loaded at startup, the highest stored id is known and ids simply
+ * continue from it. When stores are loaded lazily it is not, so the allocator
+ * reserves ids in blocks of BLOCK_SIZE by writing the end of the block to a small
+ * file before handing any of them out. A restart continues after the last reserved
+ * block, skipping the ids the previous run did not use; one file write covers
+ * BLOCK_SIZE new tasks.
+ *
+ * No id is handed out unless its block is reserved: when the file cannot be
+ * written, next() fails instead.
+ */
+final class IdAllocator {
+    private static final int BLOCK_SIZE = 1000;
+
+    // Null when nothing is reserved on disk
+    private final FileHandler fileHandler;
+    private final String filename;
+    private final AtomicInteger next;
+    // Ids below the limit are reserved on disk
+    private volatile int limit;
+
+    /**
+     * Creates an allocator that reserves nothing, for stores whose highest id is
+     * known once they are loaded; report it with advancePast().
+     */
+    IdAllocator() {
+        this.fileHandler = null;
+        this.filename = null;
+        this.next = new AtomicInteger(1);
+        this.limit = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Scans the stores for their highest id, for when the reserved block is lost.
+     */
+    interface MaxIdScan {
+        int maxId() throws IOException;
+    }
+
+    /**
+     * Creates an allocator that reserves ids in the given file, continuing after the
+     * block reserved last. A missing file starts at 1. An unreadable or corrupt one
+     * (it is written atomically, so an empty one counts) starts after the highest
+     * id the scan finds instead, since starting over would reuse ids.
+     * @throws UncheckedIOException If the file is unreadable or corrupt and the scan fails.
+     */
+    IdAllocator(FileHandler fileHandler, String filename, MaxIdScan scan) {
+        this.fileHandler = fileHandler;
+        this.filename = filename;
+        int start = 1;
+        if (fileHandler.exists(filename)) {
+            try {
+                start = readStart();
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Warning: Could not read the next task id from " + filename
+                        + "; scanning the stored tasks for it. Error: " + e.getMessage());
+                try {
+                    start = scan.maxId() + 1;
+                } catch (IOException scanError) {
+                    throw new UncheckedIOException("Could not recover the next task id of " + filename, scanError);
+                }
+            }
+        }
+        this.next = new AtomicInteger(start);
+        this.limit = start;
+    }
+
+    private int readStart() throws IOException {
+        List<String> lines = fileHandler.readFile(filename);
+        if (lines.isEmpty()) {
+            throw new IOException("The file is empty");
+        }
+        int start = Integer.parseInt(lines.get(0).trim());
+        if (start < 1) {
+            throw new NumberFormatException("Not a task id: " + start);
+        }
+        return start;
+    }
+
+    /**
+     * Checks whether ids are reserved in a file that exists.
+     */
+    boolean isReserved() {
+        return fileHandler != null && fileHandler.exists(filename);
+    }
+
+    /**
+     * Returns a new id.
+     * @throws UncheckedIOException If a new block had to be reserved and the file
+     *                              could not be written; the next call tries again.
+     */
+    int next() {
+        int id = next.getAndIncrement();
+        if (id >= limit) {
+            try {
+                reserve(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not reserve task ids in " + filename, e);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Makes sure no id up to maxId is handed out, e.g. after loading a store.
+     * A failed reservation is only reported: next() reserves before handing out an id.
+     */
+    void advancePast(int maxId) {
+        int id = next.accumulateAndGet(maxId + 1, Math::max);
+        if (id >= limit) {
+            try {
+                reserve(id);
+            } catch (IOException e) {
+                System.err.println("Error: Could not reserve task ids in " + filename + ". Error: " + e.getMessage());
+            }
+        }
+    }
+
+    // Waits until the block holding id is reserved; the limit only moves once the file says so
+    private synchronized void reserve(int id) throws IOException {
+        if (id < limit) {
+            return; // Another thread reserved it meanwhile
+        }
+        int newLimit = id + BLOCK_SIZE;
+        fileHandler.writeFile(filename, List.of(String.valueOf(newLimit)));
+        limit = newLimit;
+    }
+}
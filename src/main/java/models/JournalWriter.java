@@ -0,0 +1,187 @@
+package models;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import utils.FileHandler;
+
+/**
+ * JournalWriter - Appends journal records on a background thread, coalescing bursts.
+ *
+ * submit() only queues an encoded record, so callers such as the Swing event thread
+ * never wait for the disk. The first record of a burst schedules a flush a few
+ * milliseconds later; every record queued until then is appended with one write
+ * and at most one sync per shard. Records of the same shard are written in
+ * submission order. When the sync policy batches append syncs, appends a batch left
+ * unforced are forced from this thread within FileHandler.BATCH_SYNC_INTERVAL_MILLIS.
+ */
+class JournalWriter {
+    private final long coalesceMillis;
+    private final FileHandler fileHandler;
+    // Runs on the writer thread for each shard of a batch, with true if its append failed
+    private final BiConsumer<TaskShard, Boolean> afterBatch;
+    private final ScheduledExecutorService executor;
+    private final List<PersistenceListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private Map<TaskShard, List<String>> pending = new LinkedHashMap<>();
+    private CompletableFuture<Void> pendingDone = new CompletableFuture<>();
+    private CompletableFuture<Void> lastBatchDone = CompletableFuture.completedFuture(null);
+    private boolean scheduled;
+    private boolean closed;
+    // Only touched on the writer thread
+    private boolean syncScheduled;
+
+    JournalWriter(FileHandler fileHandler, long coalesceMillis, BiConsumer<TaskShard, Boolean> afterBatch) {
+        this.fileHandler = fileHandler;
+        this.coalesceMillis = coalesceMillis;
+        this.afterBatch = afterBatch;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "task-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void addListener(PersistenceListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(PersistenceListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queues a record for the shard's journal in the next batch.
+     * @return A future completed once the record is in the journal.
+     */
+    CompletableFuture<Void> submit(TaskShard shard, String record) {
+        return submitAll(shard, List.of(record));
+    }
+
+    /**
+     * Queues several records for the shard's journal in the next batch, in order.
+     * @return A future completed once the records are in the journal.
+     */
+    synchronized CompletableFuture<Void> submitAll(TaskShard shard, List<String> records) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("Task persistence is closed"));
+        }
+        if (records.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        pending.computeIfAbsent(shard, k -> new ArrayList<>()).addAll(records);
+        if (!scheduled) {
+            scheduled = true;
+            executor.schedule(this::writeBatch, coalesceMillis, TimeUnit.MILLISECONDS);
+        }
+        return pendingDone;
+    }
+
+    /**
+     * Writes the queued records now instead of waiting for the coalescing delay.
+     * @return A future completed once every record submitted so far is in the journal.
+     */
+    synchronized CompletableFuture<Void> flush() {
+        if (pending.isEmpty()) {
+            return lastBatchDone;
+        }
+        executor.execute(this::writeBatch);
+        return pendingDone;
+    }
+
+    /**
+     * Writes the queued records and stops the writer thread.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flush();
+            executor.execute(this::syncAppends); // After the last batch; delayed syncs would wait out their delay
+            executor.shutdown();
+        }
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatch() {
+        Map<TaskShard, List<String>> batch;
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return; // An earlier flush() already took this batch
+            }
+            batch = pending;
+            done = pendingDone;
+            pending = new LinkedHashMap<>();
+            pendingDone = new CompletableFuture<>();
+            lastBatchDone = done;
+            scheduled = false;
+        }
+
+        int written = 0;
+        int lost = 0;
+        IOException failure = null;
+        Set<TaskShard> failed = new HashSet<>();
+        for (Map.Entry<TaskShard, List<String>> entry : batch.entrySet()) {
+            List<String> records = entry.getValue();
+            try {
+                entry.getKey().journal.append(records);
+                written += records.size();
+            } catch (IOException e) {
+                System.err.println("Error: Could not save " + records.size() + " task changes to journal. Error: " + e.getMessage());
+                lost += records.size();
+                failure = failure == null ? e : failure;
+                failed.add(entry.getKey());
+            }
+        }
+
+        if (failure != null) {
+            done.completeExceptionally(failure);
+        } else {
+            done.complete(null);
+        }
+        for (PersistenceListener listener : listeners) {
+            if (written > 0) {
+                listener.onPersisted(written);
+            }
+            if (failure != null) {
+                listener.onPersistFailed(lost, failure);
+            }
+        }
+        for (TaskShard shard : batch.keySet()) {
+            afterBatch.accept(shard, failed.contains(shard));
+        }
+        if (!syncScheduled && fileHandler.hasUnsyncedAppends()) {
+            syncScheduled = true;
+            executor.schedule(this::syncAppends, FileHandler.BATCH_SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Forces the appends the batches left unforced; runs on the writer thread
+    private void syncAppends() {
+        syncScheduled = false;
+        try {
+            fileHandler.syncAppends();
+        } catch (IOException e) {
+            System.err.println("Error: Could not force task changes to disk. Error: " + e.getMessage());
+        }
+    }
+}
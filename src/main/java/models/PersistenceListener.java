@@ -0,0 +1,26 @@
+package models;
+
+import java.io.IOException;
+
+/**
+ * PersistenceListener - Told when queued task changes reach the journal, or fail to.
+ *
+ * Called on the background persistence thread; Swing listeners must hand the
+ * event over with SwingUtilities.invokeLater before touching components.
+ */
+public interface PersistenceListener {
+
+    /**
+     * A batch of changes was appended to the journal.
+     * @param records The number of changes in the batch.
+     */
+    default void onPersisted(int records) {}
+
+    /**
+     * A batch of changes could not be written. The changes stay in memory and
+     * are written again by the next snapshot compaction or a later successful save.
+     * @param records The number of changes in the batch.
+     * @param error The cause.
+     */
+    void onPersistFailed(int records, IOException error);
+}
@@ -0,0 +1,19 @@
+package models;
+
+import java.time.Duration;
+
+/**
+ * ReminderListener - Told when a pending task's due date is a lead time away.
+ *
+ * Called on the reminder timer thread; Swing listeners must hand the event over
+ * with SwingUtilities.invokeLater before touching components.
+ */
+@FunctionalInterface
+public interface ReminderListener {
+
+    /**
+     * @param task The task, still pending and still due at the time the reminder was set for.
+     * @param lead How long before the due date the reminder was set.
+     */
+    void onReminder(Task task, Duration lead);
+}
@@ -0,0 +1,217 @@
+package models;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import utils.ConcurrentIntObjectMap;
+import utils.DelayScheduler;
+import utils.ExecutorDelayScheduler;
+import utils.TimingWheel;
+
+/**
+ * ReminderScheduler - Fires reminders at fixed lead times before each task's due date.
+ *
+ * Follows the TaskManager as a TaskListener: adding or updating a pending task
+ * (re)schedules its reminders, completing or deleting it cancels them. Reminders
+ * whose time has already passed are skipped. The timeouts live in a TimingWheel
+ * with one-second ticks by default, so scheduling and cancelling cost O(1) even
+ * with millions of pending reminders; -Dsmarttask.reminders.timer=executor uses a
+ * ScheduledExecutorService instead, exact to the millisecond but O(log n).
+ *
+ * Before a reminder is delivered, the task is checked to still exist, be pending
+ * and be due when it was when the reminder was set, so a stale timeout never fires.
+ */
+public class ReminderScheduler implements TaskListener {
+    private static final long WHEEL_TICK_MILLIS = 1000;
+    // One turn of the wheel covers about 68 minutes at one-second ticks
+    private static final int WHEEL_SIZE = 4096;
+    private static final String DEFAULT_LEAD_MINUTES = "1440,60";
+
+    private final TaskManager taskManager;
+    private final DelayScheduler timer;
+    // Longest lead first, which is the order the reminders fire in
+    private final Duration[] leadTimes;
+    private final ConcurrentIntObjectMap<Reminders> reminders = new ConcurrentIntObjectMap<>();
+    private final List<ReminderListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param taskManager The tasks to follow; nothing is scheduled until start().
+     * @param timer Runs the reminders; stopped by stop().
+     * @param leadTimes How long before the due date to remind, e.g. one day and one hour.
+     */
+    public ReminderScheduler(TaskManager taskManager, DelayScheduler timer, List<Duration> leadTimes) {
+        this.taskManager = taskManager;
+        this.timer = timer;
+        this.leadTimes = leadTimes.stream()
+                .filter(lead -> !lead.isNegative())
+                .distinct()
+                .sorted((a, b) -> b.compareTo(a))
+                .toArray(Duration[]::new);
+    }
+
+    /**
+     * Creates a scheduler configured by system properties: -Dsmarttask.reminders.leadMinutes
+     * (comma-separated, default 1440,60) and -Dsmarttask.reminders.timer (wheel or executor).
+     */
+    public static ReminderScheduler create(TaskManager taskManager) {
+        List<Duration> leads = new ArrayList<>();
+        for (String minutes : System.getProperty("smarttask.reminders.leadMinutes", DEFAULT_LEAD_MINUTES).split(",")) {
+            try {
+                leads.add(Duration.ofMinutes(Long.parseLong(minutes.trim())));
+            } catch (NumberFormatException e) {
+                System.err.println("Warning: Ignoring invalid reminder lead time: " + minutes);
+            }
+        }
+        DelayScheduler timer = "executor".equalsIgnoreCase(System.getProperty("smarttask.reminders.timer"))
+                ? new ExecutorDelayScheduler("task-reminders")
+                : new TimingWheel(WHEEL_TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE, "task-reminders");
+        return new ReminderScheduler(taskManager, timer, leads);
+    }
+
+    /**
+     * Starts following the task manager and schedules the reminders of its current tasks.
+     */
+    public void start() {
+        taskManager.addTaskListener(this);
+        taskManager.replayTasks(this);
+    }
+
+    /**
+     * Stops following the task manager and drops every pending reminder.
+     */
+    public void stop() {
+        taskManager.removeTaskListener(this);
+        timer.stop();
+    }
+
+    public void addListener(ReminderListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ReminderListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the number of tasks with reminders still to fire.
+     */
+    public int pendingTasks() {
+        return reminders.size();
+    }
+
+    // --- TaskListener ---
+
+    @Override
+    public void onTaskAdded(Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public void onTaskUpdated(Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public void onTaskCompleted(Task task) {
+        cancel(task.getId());
+    }
+
+    @Override
+    public void onTaskDeleted(Task task) {
+        cancel(task.getId());
+    }
+
+    // --- Scheduling ---
+
+    private void schedule(Task task) {
+        if (task.isCompleted() || task.getDueDate() == null) {
+            cancel(task.getId());
+            return;
+        }
+        LocalDateTime due = task.getDueDate();
+        long untilDue = Duration.between(LocalDateTime.now(), due).toMillis();
+        // Leads are longest first, so the ones still ahead form a suffix of the array
+        int first = 0;
+        while (first < leadTimes.length && untilDue < leadTimes[first].toMillis()) {
+            first++;
+        }
+        if (first == leadTimes.length) {
+            cancel(task.getId()); // Too late for every reminder
+            return;
+        }
+        // Registered before the timeouts exist, so even a reminder that fires at once finds it
+        Reminders next = new Reminders(task, due, leadTimes.length);
+        Reminders previous = reminders.put(task.getId(), next);
+        if (previous != null) {
+            previous.cancel();
+        }
+        for (int i = first; i < leadTimes.length; i++) {
+            next.timeouts[i] = timer.schedule(next.new Fire(i), untilDue - leadTimes[i].toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancel(int taskId) {
+        Reminders previous = reminders.remove(taskId);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * The reminders of one task, set for one due date.
+     */
+    private final class Reminders {
+        final Task task;
+        final LocalDateTime due;
+        // Indexed like leadTimes; null where the reminder was skipped
+        final DelayScheduler.Timeout[] timeouts;
+
+        Reminders(Task task, LocalDateTime due, int count) {
+            this.task = task;
+            this.due = due;
+            this.timeouts = new DelayScheduler.Timeout[count];
+        }
+
+        void cancel() {
+            for (DelayScheduler.Timeout timeout : timeouts) {
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+        }
+
+        /**
+         * Runs on the timer thread when one of the reminders is due.
+         */
+        final class Fire implements Runnable {
+            private final int lead;
+
+            Fire(int lead) {
+                this.lead = lead;
+            }
+
+            @Override
+            public void run() {
+                if (lead == leadTimes.length - 1) { // The last one to fire
+                    reminders.remove(task.getId(), Reminders.this);
+                }
+                // The task is read without its lock, so double-check the timeout is not stale
+                if (taskManager.getTask(task.getId()) != task || task.isCompleted() || !due.equals(task.getDueDate())) {
+                    return;
+                }
+                for (ReminderListener listener : listeners) {
+                    try {
+                        listener.onReminder(task, leadTimes[lead]);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error: Reminder listener failed. Error: " + e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package models;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+import utils.FieldTokenizer;
+import utils.JsonWriter;
 
 /**
  * Student - Represents a student user in the system
@@ -39,27 +44,31 @@ public class Student extends User {
     }
 
     // Override abstract methods from User
+    /**
+     * Writes the Student as a JSON object, without the password hash.
+     */
     @Override
-    public String toJson() {
-        return String.format(
-                "{\"email\":\"%s\",\"firstName\":\"%s\",\"lastName\":\"%s\"," +
-                        "\"studentId\":\"%s\",\"major\":\"%s\",\"createdAt\":\"%s\"," +
-                        "\"lastLoginAt\":%s,\"isActive\":%b}",
-                email, firstName, lastName, studentId, major,
-                createdAt.toString(),
-                lastLoginAt != null ? "\"" + lastLoginAt.toString() + "\"" : "null",
-                isActive
-        );
+    public void writeJson(JsonWriter json) throws IOException {
+        json.beginObject()
+                .name("email").value(email)
+                .name("firstName").value(firstName)
+                .name("lastName").value(lastName)
+                .name("studentId").value(studentId)
+                .name("major").value(major)
+                .name("createdAt").value(createdAt.toString())
+                .name("lastLoginAt").value(lastLoginAt != null ? lastLoginAt.toString() : null)
+                .name("isActive").value(isActive)
+                .endObject();
     }
 
     @Override
     public String toFileString() {
         return String.join("|",
-                email != null ? email : "",
-                firstName != null ? firstName : "",
-                lastName != null ? lastName : "",
-                studentId != null ? studentId : "",
-                major != null ? major : "",
+                toFileField(email),
+                toFileField(firstName),
+                toFileField(lastName),
+                toFileField(studentId),
+                toFileField(major),
                 hashedPassword != null ? hashedPassword : "",
                 createdAt.toString(),
                 lastLoginAt != null ? lastLoginAt.toString() : "null",
@@ -67,27 +76,38 @@ public class Student extends User {
         );
     }
 
+    // Strips the field separator and line breaks, which would corrupt the record
+    private static String toFileField(String text) {
+        return text == null ? "" : text.replace("|", "").replace('\r', ' ').replace('\n', ' ');
+    }
+
     // Parse from file
     public static Student fromFileString(String line) {
         try {
-            String[] parts = line.split("\\|");
-            if (parts.length >= 9) {
-                Student student = new Student();
-                student.setEmail(parts[0]);
-                student.setFirstName(parts[1]);
-                student.setLastName(parts[2]);
-                student.setStudentId(parts[3]);
-                student.setMajor(parts[4]);
-                student.setHashedPassword(parts[5]);
-                student.setCreatedAt(LocalDateTime.parse(parts[6]));
-                if (!parts[7].equals("null")) {
-                    student.setLastLoginAt(LocalDateTime.parse(parts[7]));
-                }
-                student.setActive(Boolean.parseBoolean(parts[8]));
-                return student;
+            // Reads the fields in one pass, without regex or an intermediate String[]
+            FieldTokenizer fields = new FieldTokenizer(line, '|');
+            Student student = new Student();
+            student.setEmail(fields.next());
+            student.setFirstName(fields.next());
+            student.setLastName(fields.next());
+            student.setStudentId(fields.next());
+            student.setMajor(fields.next());
+            student.setHashedPassword(fields.next());
+            student.setCreatedAt(fields.nextDateTime());
+            if (fields.nextEquals("null")) {
+                student.setLastLoginAt(null);
+            } else {
+                student.setLastLoginAt(fields.nextDateTime());
             }
+            student.setActive(fields.nextBoolean());
+            return student;
+        } catch (NoSuchElementException e) {
+            // Fewer than 9 fields: not a student record
         } catch (Exception e) {
-            System.err.println("Error parsing student: " + e.getMessage());
+            // Lines with fewer than 9 fields are skipped silently, as before
+            if (FieldTokenizer.countFields(line, '|') >= 9) {
+                System.err.println("Error parsing student: " + e.getMessage());
+            }
         }
         return null;
     }
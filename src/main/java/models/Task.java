@@ -1,19 +1,28 @@
 package models;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
+import utils.FieldTokenizer;
+import utils.JsonWriter;
+
 public class Task {
     private int id;
     private String studentEmail;
     private String title;
     private String description;
-    private String category;
+    private Category category;
     private Priority priority;
     private LocalDateTime createdAt;
     private LocalDateTime dueDate;
     private boolean isCompleted;
+    // Bumped by every setter, so views can tell whether a task changed since they drew it
+    private int version;
 
     public enum Priority {
         HIGH("high"),
@@ -47,7 +56,7 @@ public class Task {
         this.studentEmail = studentEmail;
         this.title = title;
         this.description = description;
-        this.category = category;
+        this.category = Category.of(category);
         this.priority = priority;
         this.createdAt = LocalDateTime.now();
         this.dueDate = dueDate;
@@ -80,9 +89,9 @@ public class Task {
         return String.join("|",
                 String.valueOf(id),
                 studentEmail,
-                title,
-                description.replace("|", ""), // Remove pipes from description
-                category,
+                toFileField(title),
+                toFileField(description),
+                toFileField(getCategory()),
                 priority.getValue(),
                 createdAt.toString(),
                 dueDate.toString(),
@@ -90,58 +99,106 @@ public class Task {
         );
     }
 
+    // Free text may not contain the field separator or a line break, which ends the record
+    private static String toFileField(String text) {
+        return text == null ? "" : text.replace("|", "").replace('\r', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * Converts the Task object to a JSON object string.
+     */
+    public String toJson() {
+        StringWriter json = new StringWriter(256);
+        try {
+            writeJson(new JsonWriter(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter never throws
+        }
+        return json.toString();
+    }
+
+    /**
+     * Writes the Task as a JSON object, e.g. as one element of a streamed array.
+     */
+    public void writeJson(JsonWriter json) throws IOException {
+        json.beginObject()
+                .name("id").value(id)
+                .name("studentEmail").value(studentEmail)
+                .name("title").value(title)
+                .name("description").value(description)
+                .name("category").value(getCategory())
+                .name("priority").value(priority.getValue())
+                .name("createdAt").value(createdAt.toString())
+                .name("dueDate").value(dueDate.toString())
+                .name("isCompleted").value(isCompleted)
+                .endObject();
+    }
+
     /**
      * Creates a Task object from a file string line.
      */
     public static Task fromFileString(String line) {
         try {
-            String[] parts = line.split("\\|", -1); // Split with limit to handle empty trailing values
-            if (parts.length >= 9) {
-                Task task = new Task();
-                task.setId(Integer.parseInt(parts[0]));
-                task.setStudentEmail(parts[1]);
-                task.setTitle(parts[2]);
-                task.setDescription(parts[3]);
-                task.setCategory(parts[4]);
-                task.setPriority(Priority.fromString(parts[5]));
-                task.setCreatedAt(LocalDateTime.parse(parts[6]));
-                task.setDueDate(LocalDateTime.parse(parts[7]));
-                task.setCompleted(Boolean.parseBoolean(parts[8]));
-                return task;
-            }
+            // Reads the fields in one pass, without regex or an intermediate String[]
+            FieldTokenizer fields = new FieldTokenizer(line, '|');
+            Task task = new Task();
+            task.setId(fields.nextInt());
+            task.setStudentEmail(fields.next());
+            task.setTitle(fields.next());
+            task.setDescription(fields.next());
+            task.setCategory(fields.next());
+            task.setPriority(Priority.fromString(fields.next()));
+            task.setCreatedAt(fields.nextDateTime());
+            task.setDueDate(fields.nextDateTime());
+            task.setCompleted(fields.nextBoolean());
+            return task;
+        } catch (NoSuchElementException e) {
+            // Fewer than 9 fields: not a task record
         } catch (NumberFormatException | DateTimeParseException e) {
-            System.err.println("Error parsing task line: " + e.getMessage() + " -> " + line);
+            // Lines with fewer than 9 fields are skipped silently, as before
+            if (FieldTokenizer.countFields(line, '|') >= 9) {
+                System.err.println("Error parsing task line: " + e.getMessage() + " -> " + line);
+            }
         }
         return null;
     }
 
     // --- Getters and Setters ---
     public int getId() { return id; }
-    public void setId(int id) { this.id = id; }
+    public void setId(int id) { this.id = id; version++; }
 
     public String getStudentEmail() { return studentEmail; }
-    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; version++; }
 
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public void setTitle(String title) { this.title = title; version++; }
 
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) { this.description = description; version++; }
 
-    public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
+    public String getCategory() { return category == null ? null : category.getName(); }
+    /**
+     * Returns the interned category, for identity comparisons.
+     */
+    public Category getCategoryRef() { return category; }
+    public void setCategory(String category) { this.category = Category.of(category); version++; }
 
     public Priority getPriority() { return priority; }
-    public void setPriority(Priority priority) { this.priority = priority; }
+    public void setPriority(Priority priority) { this.priority = priority; version++; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
-    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; version++; }
 
     public LocalDateTime getDueDate() { return dueDate; }
-    public void setDueDate(LocalDateTime dueDate) { this.dueDate = dueDate; }
+    public void setDueDate(LocalDateTime dueDate) { this.dueDate = dueDate; version++; }
 
     public boolean isCompleted() { return isCompleted; }
-    public void setCompleted(boolean completed) { isCompleted = completed; }
+    public void setCompleted(boolean completed) { isCompleted = completed; version++; }
+
+    /**
+     * Returns a counter that changes whenever a field of the task is set.
+     */
+    public int getVersion() { return version; }
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,148 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TaskCache - Bookkeeping for the loaded shards of the sharded layout.
+ *
+ * Keeps the loaded shards in least recently used order and counts the lookups that
+ * found a student's shard loaded (hits) or had to read it (misses). A bound on the
+ * number of loaded shards (-Dsmarttask.cache.maxStudents) or on their estimated heap
+ * size (-Dsmarttask.cache.maxBytes) makes victims() name the least recently used
+ * ones to evict; TaskManager writes them back and drops their tasks. Both bounds
+ * default to 0, no bound.
+ *
+ * The size of a shard is estimated from its tasks as they are added and removed,
+ * at TASK_BYTES plus the text of each, which is close to the heap a loaded task
+ * costs with its index entries.
+ *
+ * Thread-safe; the order is guarded by this.
+ */
+final class TaskCache {
+    // Task, dates, id map slot, index tree nodes and search postings, measured on a 64-bit JVM
+    private static final long TASK_BYTES = 800;
+
+    private final int maxShards;
+    private final long maxBytes;
+    // Access order, least recently used first; guarded by this
+    private final Map<TaskShard, TaskShard> shards = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile int size;
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong writeBacks = new AtomicLong();
+
+    /**
+     * @param maxShards The most shards to keep loaded, or 0 for no bound.
+     * @param maxBytes The most estimated bytes of tasks to keep loaded, or 0 for no bound.
+     */
+    TaskCache(int maxShards, long maxBytes) {
+        this.maxShards = Math.max(0, maxShards);
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    /**
+     * Returns the estimated heap size of a loaded task.
+     */
+    static long estimateBytes(Task task) {
+        return TASK_BYTES + 2L * (task.getTitle().length() + task.getDescription().length());
+    }
+
+    /**
+     * Records a lookup that found the shard loaded.
+     */
+    void hit(TaskShard shard) {
+        hits.incrementAndGet();
+        if (isBounded()) {
+            synchronized (this) {
+                shards.get(shard); // Moves it to the most recently used end
+            }
+        }
+    }
+
+    /**
+     * Records a shard that was just loaded. Called under the shard's monitor.
+     */
+    synchronized void loaded(TaskShard shard) {
+        misses.incrementAndGet();
+        shards.put(shard, shard);
+        size = shards.size();
+    }
+
+    /**
+     * Records a shard that was just evicted. Called under the shard's monitor.
+     * @param wroteBack Whether its changes had to be written back first.
+     */
+    synchronized void evicted(TaskShard shard, boolean wroteBack) {
+        shards.remove(shard);
+        size = shards.size();
+        bytes.addAndGet(-shard.bytes.getAndSet(0));
+        evictions.incrementAndGet();
+        if (wroteBack) {
+            writeBacks.incrementAndGet();
+        }
+    }
+
+    /**
+     * Adjusts the estimated size of a shard, e.g. by estimateBytes() of an added task.
+     */
+    void resize(TaskShard shard, long delta) {
+        shard.bytes.addAndGet(delta);
+        bytes.addAndGet(delta);
+    }
+
+    /**
+     * Forgets all shards, keeping the counters.
+     */
+    synchronized void clear() {
+        shards.clear();
+        size = 0;
+        bytes.set(0);
+    }
+
+    /**
+     * Checks whether more shards or bytes are loaded than the bounds allow.
+     */
+    boolean isFull() {
+        return isOver(size, bytes.get());
+    }
+
+    /**
+     * Returns the least recently used shards to evict to get back within the bounds,
+     * skipping pinned ones, which are in use.
+     */
+    synchronized List<TaskShard> victims() {
+        List<TaskShard> victims = new ArrayList<>();
+        int count = shards.size();
+        long total = bytes.get();
+        for (TaskShard shard : shards.keySet()) { // Iterating does not change the access order
+            if (!isOver(count, total)) {
+                break;
+            }
+            if (shard.pins.get() == 0) {
+                victims.add(shard);
+                count--;
+                total -= shard.bytes.get();
+            }
+        }
+        return victims;
+    }
+
+    private boolean isBounded() {
+        return maxShards > 0 || maxBytes > 0;
+    }
+
+    private boolean isOver(int count, long total) {
+        return (maxShards > 0 && count > maxShards) || (maxBytes > 0 && total > maxBytes);
+    }
+
+    TaskManager.CacheStats stats() {
+        return new TaskManager.CacheStats(hits.get(), misses.get(), evictions.get(), writeBacks.get(),
+                size, bytes.get());
+    }
+}
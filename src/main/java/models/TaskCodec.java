@@ -0,0 +1,54 @@
+package models;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import utils.FileHandler;
+
+/**
+ * TaskCodec - Storage format for task snapshots and journal records.
+ *
+ * TaskManager persists through a codec so the on-disk format can be swapped
+ * without touching the rest of the code. Select one with
+ * -Dsmarttask.codec=text|binary; the pipe-delimited text format is the default.
+ */
+public interface TaskCodec {
+
+    /**
+     * Returns the file extension of snapshots in this format, e.g. "txt".
+     */
+    String getFileExtension();
+
+    /**
+     * Reads a snapshot, handing each task to the sink in file order.
+     * Nothing happens if the file doesn't exist yet.
+     * @return The highest task id read, or 0 if there were none.
+     * @throws IOException If an I/O error occurs or the file is not in this format.
+     */
+    int read(FileHandler fileHandler, String filename, Consumer<Task> sink) throws IOException;
+
+    /**
+     * Atomically replaces a snapshot with the given tasks.
+     * @throws IOException If an I/O error occurs writing the file.
+     */
+    void write(FileHandler fileHandler, String filename, Collection<Task> tasks) throws IOException;
+
+    /**
+     * Encodes a single task as a self-contained, single-line journal record.
+     */
+    String encodeRecord(Task task);
+
+    /**
+     * Decodes a record produced by encodeRecord.
+     * @return The task, or null if the record is malformed.
+     */
+    Task decodeRecord(String record);
+
+    static TaskCodec fromString(String name) {
+        if ("binary".equalsIgnoreCase(name)) {
+            return new BinaryTaskCodec();
+        }
+        return new TextTaskCodec(); // Default if unset or invalid
+    }
+}
@@ -0,0 +1,308 @@
+package models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import utils.IntIntMap;
+
+/**
+ * TaskColumns - Struct-of-arrays copy of the tasks for scans.
+ *
+ * Every task is one row across parallel primitive arrays: id, due and created
+ * instants as epoch seconds (the due one with its nanoseconds alongside, so
+ * "overdue" agrees with TaskIndex to the nanosecond), priority as its ordinal, completion as one bit,
+ * category as its Category id and email as a code into an append-only dictionary. A scan walks the
+ * email column front to back comparing ints, which the JIT unrolls into a tight
+ * loop, and reads the other columns only for the student's rows; it never touches
+ * a Task, a LocalDateTime or a String. (A branch-free variant that reads every
+ * column for every row measured 4-5x slower: the email test rejects almost every
+ * row and predicts well.) Rows are unordered; removal moves the last row into the
+ * hole.
+ *
+ * Follows the TaskManager as a TaskListener, so rows change under the student's
+ * lock like the rest of the manager's state. A read/write lock makes scans see
+ * whole rows. Times are compared as local date-times, which is what Task stores.
+ */
+class TaskColumns implements TaskListener {
+    private static final int INITIAL_CAPACITY = 1024;
+    // Category code of tasks without a category; never equals a Category id
+    private static final int NO_CATEGORY = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // --- Columns, one entry per row in [0, size) ---
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private long[] dueEpochs = new long[INITIAL_CAPACITY];
+    private int[] dueNanos = new int[INITIAL_CAPACITY];
+    private long[] createdEpochs = new long[INITIAL_CAPACITY];
+    private byte[] priorities = new byte[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private int[] emailCodes = new int[INITIAL_CAPACITY];
+    private long[] completedBits = new long[INITIAL_CAPACITY / 64];
+    // The tasks themselves, to hand out query results
+    private Task[] tasks = new Task[INITIAL_CAPACITY];
+
+    // Row of each task id
+    private final IntIntMap rows = new IntIntMap();
+    private final Dictionary emails = new Dictionary();
+    // Number of rows per email code, to size query results and end scans early
+    private int[] rowsPerEmail = new int[INITIAL_CAPACITY];
+
+    // --- TaskListener ---
+
+    @Override
+    public void onTaskAdded(Task task) {
+        put(task);
+    }
+
+    @Override
+    public void onTaskUpdated(Task task) {
+        put(task);
+    }
+
+    @Override
+    public void onTaskCompleted(Task task) {
+        put(task);
+    }
+
+    @Override
+    public void onTaskDeleted(Task task) {
+        remove(task.getId());
+    }
+
+    // --- Rows ---
+
+    /**
+     * Adds the task, or overwrites its row with its current fields.
+     */
+    void put(Task task) {
+        lock.writeLock().lock();
+        try {
+            int row = rows.get(task.getId());
+            if (row != IntIntMap.MISSING) {
+                rowsPerEmail[emailCodes[row]]--;
+            } else {
+                row = size++;
+                ensureCapacity(size);
+                rows.put(task.getId(), row);
+            }
+            write(row, task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int row = rows.remove(id);
+            if (row == IntIntMap.MISSING) {
+                return;
+            }
+            rowsPerEmail[emailCodes[row]]--;
+            int last = --size;
+            if (row != last) {
+                // Fill the hole with the last row
+                ids[row] = ids[last];
+                dueEpochs[row] = dueEpochs[last];
+                dueNanos[row] = dueNanos[last];
+                createdEpochs[row] = createdEpochs[last];
+                priorities[row] = priorities[last];
+                categoryCodes[row] = categoryCodes[last];
+                emailCodes[row] = emailCodes[last];
+                setCompleted(row, isCompleted(last));
+                tasks[row] = tasks[last];
+                rows.put(ids[row], row);
+            }
+            tasks[last] = null;
+            setCompleted(last, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(int row, Task task) {
+        ids[row] = task.getId();
+        dueEpochs[row] = epochOf(task.getDueDate());
+        dueNanos[row] = nanoOf(task.getDueDate());
+        createdEpochs[row] = epochOf(task.getCreatedAt());
+        priorities[row] = (byte) task.getPriority().ordinal();
+        Category category = task.getCategoryRef();
+        categoryCodes[row] = category == null ? NO_CATEGORY : category.getId();
+        int emailCode = emails.codeOf(TaskIndex.normalizeEmail(task.getStudentEmail()));
+        if (emailCode == rowsPerEmail.length) {
+            rowsPerEmail = Arrays.copyOf(rowsPerEmail, emailCode * 2);
+        }
+        rowsPerEmail[emailCode]++;
+        emailCodes[row] = emailCode;
+        setCompleted(row, task.isCompleted());
+        tasks[row] = task;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        dueEpochs = Arrays.copyOf(dueEpochs, newCapacity);
+        dueNanos = Arrays.copyOf(dueNanos, newCapacity);
+        createdEpochs = Arrays.copyOf(createdEpochs, newCapacity);
+        priorities = Arrays.copyOf(priorities, newCapacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, newCapacity);
+        emailCodes = Arrays.copyOf(emailCodes, newCapacity);
+        completedBits = Arrays.copyOf(completedBits, (newCapacity + 63) / 64);
+        tasks = Arrays.copyOf(tasks, newCapacity);
+    }
+
+    private boolean isCompleted(int row) {
+        return (completedBits[row >>> 6] & (1L << row)) != 0; // Shifts use the low 6 bits
+    }
+
+    private void setCompleted(int row, boolean completed) {
+        if (completed) {
+            completedBits[row >>> 6] |= 1L << row;
+        } else {
+            completedBits[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    // --- Scans ---
+
+    /**
+     * Counts a student's tasks in one pass over the columns.
+     * @param now The time that decides which pending tasks are overdue and due today.
+     */
+    TaskIndex.Counts counts(String email, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        long nowEpoch = epochOf(now);
+        int nowNano = nanoOf(now);
+        long startOfToday = epochOf(today.atStartOfDay());
+        long startOfTomorrow = epochOf(today.plusDays(1).atStartOfDay());
+        lock.readLock().lock();
+        try {
+            int emailCode = emails.find(TaskIndex.normalizeEmail(email));
+            if (emailCode < 0) {
+                return new TaskIndex.Counts(0, 0, 0, 0);
+            }
+            int[] emailColumn = emailCodes;
+            long[] dueColumn = dueEpochs;
+            int[] dueNanoColumn = dueNanos;
+            long[] completedColumn = completedBits;
+            int rowCount = size;
+            int expected = rowsPerEmail[emailCode];
+            int total = 0;
+            int completed = 0;
+            int overdue = 0;
+            int dueToday = 0;
+            for (int row = 0; row < rowCount && total < expected; row++) {
+                if (emailColumn[row] != emailCode) {
+                    continue;
+                }
+                total++;
+                if ((completedColumn[row >>> 6] & (1L << row)) != 0) {
+                    completed++;
+                    continue;
+                }
+                long due = dueColumn[row];
+                // now.isAfter(due), as TaskIndex decides it; the nanoseconds only break ties
+                if (nowEpoch > due || (nowEpoch == due && nowNano > dueNanoColumn[row])) {
+                    overdue++;
+                }
+                // Midnights have no nanoseconds, so the seconds alone decide the day
+                if (due >= startOfToday && due < startOfTomorrow) {
+                    dueToday++;
+                }
+            }
+            return new TaskIndex.Counts(total, completed, overdue, dueToday);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a student's tasks matching the filters, in no particular order.
+     * @param category The category to match (case-insensitive), or null for all.
+     * @param priority The priority to match, or null for all.
+     */
+    List<Task> query(String email, String category, Task.Priority priority) {
+        List<Task> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int emailCode = emails.find(TaskIndex.normalizeEmail(email));
+            Category categoryRef = Category.find(category);
+            if (emailCode < 0 || (category != null && categoryRef == null)) {
+                return result;
+            }
+            int categoryCode = categoryRef == null ? -1 : categoryRef.getId();
+            int priorityCode = priority == null ? -1 : priority.ordinal();
+            int[] emailColumn = emailCodes;
+            int[] categoryColumn = categoryCodes;
+            byte[] priorityColumn = priorities;
+            int rowCount = size;
+            // Matching rows are collected into an exact-size array, so the loop makes no calls
+            int[] found = new int[rowsPerEmail[emailCode]];
+            int seen = 0;
+            int matches = 0;
+            for (int row = 0; row < rowCount && seen < found.length; row++) {
+                if (emailColumn[row] != emailCode) {
+                    continue;
+                }
+                seen++;
+                // -1 as a code stands for "any"
+                if ((categoryCode < 0 || categoryColumn[row] == categoryCode)
+                        && (priorityCode < 0 || priorityColumn[row] == priorityCode)) {
+                    found[matches++] = row;
+                }
+            }
+            for (int i = 0; i < matches; i++) {
+                result.add(tasks[found[i]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long epochOf(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int nanoOf(LocalDateTime time) {
+        return time == null ? 0 : time.getNano();
+    }
+
+    /**
+     * Append-only mapping between strings and dense int codes.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int codeOf(String value) {
+            return codes.computeIfAbsent(value, k -> codes.size());
+        }
+
+        // Returns the code, or -1 if the value never occurred
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+    }
+}
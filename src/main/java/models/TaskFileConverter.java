@@ -0,0 +1,89 @@
+package models;
+
+import java.io.IOException;
+
+import utils.FileHandler;
+import utils.IntObjectMap;
+
+/**
+ * TaskFileConverter - Converts the task store in the data directory between formats.
+ *
+ * Usage: java models.TaskFileConverter <text|binary> <text|binary>
+ * The source snapshot and journal are read, and a compacted snapshot is written
+ * in the target format. The source files are left in place.
+ */
+public final class TaskFileConverter {
+
+    private static final TaskCodec[] CODECS = {new TextTaskCodec(), new BinaryTaskCodec()};
+
+    private TaskFileConverter() {}
+
+    /**
+     * Converts a store from one codec to another.
+     * @param baseName The snapshot name without extension, e.g. "tasks".
+     * @return The number of tasks converted.
+     * @throws IOException If an I/O error occurs reading or writing either store.
+     */
+    public static int convert(FileHandler fileHandler, String baseName, TaskCodec from, TaskCodec to)
+            throws IOException {
+        IntObjectMap<Task> tasks = new TaskJournal(fileHandler, baseName, from).load();
+        new TaskJournal(fileHandler, baseName, to).compact(tasks.values());
+        return tasks.size();
+    }
+
+    /**
+     * Brings a store up to date in the given codec after the codec was switched:
+     * if the store of another codec was written more recently than this one's,
+     * it is converted over this one. The other store is left in place.
+     * @return The number of tasks converted, or -1 if this store was already current.
+     * @throws IOException If an I/O error occurs reading or writing either store.
+     */
+    static int convertIfNewer(FileHandler fileHandler, String baseName, TaskCodec to) throws IOException {
+        long current = new TaskJournal(fileHandler, baseName, to).lastModified();
+        TaskCodec newest = null;
+        long newestModified = current;
+        for (TaskCodec from : CODECS) {
+            if (from.getFileExtension().equals(to.getFileExtension())) {
+                continue;
+            }
+            long modified = new TaskJournal(fileHandler, baseName, from).lastModified();
+            if (modified > newestModified) {
+                newest = from;
+                newestModified = modified;
+            }
+        }
+        return newest == null ? -1 : convert(fileHandler, baseName, newest, to);
+    }
+
+    /**
+     * Returns the highest task id in a store, in any codec, including ids deleted in
+     * its journal; 0 if there is none.
+     * @throws IOException If an I/O error occurs reading a store.
+     */
+    static int maxId(FileHandler fileHandler, String baseName) throws IOException {
+        int maxId = 0;
+        for (TaskCodec codec : CODECS) {
+            TaskJournal journal = new TaskJournal(fileHandler, baseName, codec);
+            journal.load();
+            maxId = Math.max(maxId, journal.getMaxId());
+        }
+        return maxId;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java models.TaskFileConverter <text|binary> <text|binary>");
+            System.exit(2);
+        }
+        TaskCodec from = TaskCodec.fromString(args[0]);
+        TaskCodec to = TaskCodec.fromString(args[1]);
+        try {
+            int count = convert(new FileHandler(), TaskManager.TASKS_BASE_NAME, from, to);
+            System.out.println("Converted " + count + " tasks from " + from.getFileExtension()
+                    + " to " + to.getFileExtension() + ".");
+        } catch (IOException e) {
+            System.err.println("Error: Could not convert tasks. Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TaskIndex - Secondary index of tasks by student email.
+ *
+ * Each student has a bucket of tasks sorted by due date, with sub-buckets per
+ * category, per priority and per category/priority pair. A filtered query just
+ * copies the matching bucket, so its cost depends on the size of the result
+ * rather than on the total number of tasks.
+ *
+ * Each bucket also splits its pending tasks into an overdue set and an upcoming
+ * set, both ordered by due date, and counts pending tasks per due day. The index
+ * keeps its own clock: tick() advances it and moves every task whose due instant
+ * has passed from upcoming to overdue, taking them from one due-date ordered queue
+ * shared by all students. Stats, "next due", "overdue" and "due today" are then
+ * plain lookups that never read the system clock or look at each task, and they
+ * are as current as the last tick.
+ *
+ * Each bucket also holds a TextIndex of the words in its tasks' titles and
+ * descriptions for search().
+ *
+ * The index keys on email, title, description, category, priority, due date and
+ * completion, so a task must be removed before any of those fields change and
+ * added again afterwards.
+ *
+ * The index is thread-safe. Every student bucket has its own read/write lock, so
+ * threads working on different students never wait for each other, and readers of
+ * the same student run in parallel. Callers that change a task in several steps hold
+ * the bucket's write lock (see writeLock) across the remove, the change and the add.
+ * Buckets are kept once created, even when empty, so a lock handed out for a
+ * student stays the one guarding that student's tasks. The only exception is
+ * dropIfEmpty(), for callers that know no other thread holds or is about to take
+ * the student's lock.
+ */
+public class TaskIndex {
+    // Ties on the due date are broken by id so distinct tasks never compare equal
+    static final Comparator<Task> BY_DUE_DATE =
+            Comparator.comparing(Task::getDueDate).thenComparingInt(Task::getId);
+
+    private final Map<String, StudentTasks> byStudent = new ConcurrentHashMap<>();
+    // Upcoming tasks of all students, earliest due date first; drained by tick()
+    private final ConcurrentSkipListSet<Task> dueQueue = new ConcurrentSkipListSet<>(BY_DUE_DATE);
+    private volatile Clock clock;
+
+    /**
+     * Creates an empty index whose clock reads the current time.
+     */
+    public TaskIndex() {
+        this(LocalDateTime.now());
+    }
+
+    /**
+     * Creates an empty index whose clock starts at the given time.
+     */
+    public TaskIndex(LocalDateTime now) {
+        this.clock = new Clock(now);
+    }
+
+    /**
+     * Normalizes an email for use as an index key.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private StudentTasks bucketOf(String email) {
+        return byStudent.computeIfAbsent(normalizeEmail(email), k -> new StudentTasks());
+    }
+
+    /**
+     * Returns the lock that guards a student's tasks. The lock is reentrant, so
+     * add and remove may be called while holding it.
+     */
+    public Lock writeLock(String email) {
+        return bucketOf(email).lock.writeLock();
+    }
+
+    public void add(Task task) {
+        StudentTasks bucket = bucketOf(task.getStudentEmail());
+        bucket.lock.writeLock().lock();
+        try {
+            bucket.add(task, clock.now, dueQueue);
+        } finally {
+            bucket.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Task task) {
+        StudentTasks bucket = byStudent.get(normalizeEmail(task.getStudentEmail()));
+        if (bucket != null) {
+            bucket.lock.writeLock().lock();
+            try {
+                bucket.remove(task, dueQueue);
+            } finally {
+                bucket.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops a student's bucket, and with it their lock, if it holds no tasks. Only
+     * safe while holding the student's write lock and while no other thread can be
+     * about to take it, e.g. when the student's tasks were just evicted: a thread
+     * still waiting on the old lock would not exclude the holder of the new one.
+     */
+    public void dropIfEmpty(String email) {
+        byStudent.computeIfPresent(normalizeEmail(email), (key, bucket) -> bucket.all.isEmpty() ? null : bucket);
+    }
+
+    /**
+     * Returns the number of students with a bucket, empty ones included. For tests.
+     */
+    int bucketCount() {
+        return byStudent.size();
+    }
+
+    /**
+     * Drops every bucket. Not safe while other threads use the index.
+     */
+    public void clear() {
+        byStudent.clear();
+        dueQueue.clear();
+    }
+
+    public void addAll(Collection<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns a student's tasks sorted by due date.
+     * @param email The student's email (case-insensitive).
+     * @param category The category to match (case-insensitive), or null for all.
+     * @param priority The priority to match, or null for all.
+     */
+    public List<Task> query(String email, String category, Task.Priority priority) {
+        StudentTasks bucket = byStudent.get(normalizeEmail(email));
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+        bucket.lock.readLock().lock();
+        try {
+            TreeSet<Task> match = bucket.find(category, priority);
+            return match == null ? new ArrayList<>() : new ArrayList<>(match);
+        } finally {
+            bucket.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a student's tasks whose title or description matches every word of the
+     * query, sorted by due date. See TextIndex for how words match.
+     * @param query The search text; without any words, nothing matches.
+     * @param category The category to match (case-insensitive), or null for all.
+     * @param priority The priority to match, or null for all.
+     */
+    public List<Task> search(String email, String query, String category, Task.Priority priority) {
+        List<String> words = TextIndex.tokenize(query);
+        StudentTasks bucket = byStudent.get(normalizeEmail(email));
+        if (bucket == null || words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        bucket.lock.readLock().lock();
+        try {
+            TreeSet<Task> scope = bucket.find(category, priority);
+            return scope == null ? new ArrayList<>() : bucket.text.search(words, scope);
+        } finally {
+            bucket.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Advances the clock and moves every pending task whose due instant has passed
+     * into its student's overdue set. A clock that would go backwards is ignored.
+     * @param now The current time.
+     */
+    public void tick(LocalDateTime now) {
+        Clock current = clock;
+        if (now.isBefore(current.now)) {
+            return;
+        }
+        if (!now.equals(current.now)) {
+            clock = current.advanceTo(now);
+        }
+        Task first;
+        while ((first = firstDue()) != null && now.isAfter(first.getDueDate())) {
+            if (!dueQueue.remove(first)) {
+                continue; // Removed or rescheduled by its student meanwhile
+            }
+            StudentTasks bucket = byStudent.get(normalizeEmail(first.getStudentEmail()));
+            if (bucket == null) {
+                continue; // Dropped with the student's evicted tasks
+            }
+            bucket.lock.writeLock().lock();
+            try {
+                bucket.markOverdue(first, now, dueQueue);
+            } finally {
+                bucket.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Task firstDue() {
+        try {
+            return dueQueue.first();
+        } catch (NoSuchElementException e) {
+            return null; // Emptied since the check
+        }
+    }
+
+    /**
+     * Returns the time of the last tick.
+     */
+    public LocalDateTime now() {
+        return clock.now;
+    }
+
+    /**
+     * Reads all stats counters of a student at once, so they are consistent with each other.
+     * Overdue and due today are as of the last tick.
+     */
+    public Counts counts(String email) {
+        StudentTasks bucket = byStudent.get(normalizeEmail(email));
+        if (bucket == null) {
+            return new Counts(0, 0, 0, 0);
+        }
+        LocalDate today = clock.today;
+        bucket.lock.readLock().lock();
+        try {
+            return bucket.counts(today);
+        } finally {
+            bucket.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a student's pending tasks that are not overdue yet, earliest due date first.
+     * @param limit The maximum number of tasks to return.
+     */
+    public List<Task> nextDue(String email, int limit) {
+        List<Task> result = new ArrayList<>();
+        StudentTasks bucket = byStudent.get(normalizeEmail(email));
+        if (bucket == null || limit <= 0) {
+            return result;
+        }
+        bucket.lock.readLock().lock();
+        try {
+            for (Task task : bucket.upcoming) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(task);
+            }
+            return result;
+        } finally {
+            bucket.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a student's overdue tasks, most overdue first.
+     */
+    public List<Task> overdue(String email) {
+        StudentTasks bucket = byStudent.get(normalizeEmail(email));
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+        bucket.lock.readLock().lock();
+        try {
+            return new ArrayList<>(bucket.overdue);
+        } finally {
+            bucket.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a student's pending tasks due on the clock's current day, overdue ones
+     * included, sorted by due date.
+     */
+    public List<Task> dueToday(String email) {
+        StudentTasks bucket = byStudent.get(normalizeEmail(email));
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+        Clock current = clock;
+        bucket.lock.readLock().lock();
+        try {
+            // Overdue tasks all come before upcoming ones, so the two ranges join in order
+            List<Task> result = new ArrayList<>(bucket.overdue.tailSet(current.startOfToday, true));
+            result.addAll(bucket.upcoming.headSet(current.startOfTomorrow, false));
+            return result;
+        } finally {
+            bucket.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot of one student's stats counters.
+     */
+    public static class Counts {
+        private final int total;
+        private final int completed;
+        private final int overdue;
+        private final int dueToday;
+
+        public Counts(int total, int completed, int overdue, int dueToday) {
+            this.total = total;
+            this.completed = completed;
+            this.overdue = overdue;
+            this.dueToday = dueToday;
+        }
+
+        public int getTotal() { return total; }
+        public int getCompleted() { return completed; }
+        public int getOverdue() { return overdue; }
+        public int getDueToday() { return dueToday; }
+    }
+
+    /**
+     * One reading of the index clock, with the day boundaries derived from it. Replaced
+     * as a whole, so readers always see matching fields.
+     */
+    private static final class Clock {
+        final LocalDateTime now;
+        final LocalDate today;
+        // Probes that sort before every task due at the start of the day
+        final Task startOfToday;
+        final Task startOfTomorrow;
+
+        Clock(LocalDateTime now) {
+            this(now, now.toLocalDate(), null);
+        }
+
+        private Clock(LocalDateTime now, LocalDate today, Clock previous) {
+            this.now = now;
+            this.today = today;
+            if (previous != null && previous.today.equals(today)) {
+                this.startOfToday = previous.startOfToday;
+                this.startOfTomorrow = previous.startOfTomorrow;
+            } else {
+                this.startOfToday = probe(today.atStartOfDay());
+                this.startOfTomorrow = probe(today.plusDays(1).atStartOfDay());
+            }
+        }
+
+        Clock advanceTo(LocalDateTime now) {
+            return new Clock(now, now.toLocalDate(), this);
+        }
+
+        private static Task probe(LocalDateTime dueDate) {
+            Task probe = new Task();
+            probe.setId(Integer.MIN_VALUE);
+            probe.setDueDate(dueDate);
+            return probe;
+        }
+    }
+
+    private static class StudentTasks {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeSet<Task> all = new TreeSet<>(BY_DUE_DATE);
+        // Keyed by the interned Category, so lookups compare by identity
+        private final Map<Category, TreeSet<Task>> byCategory = new HashMap<>();
+        private final Map<Task.Priority, TreeSet<Task>> byPriority = new EnumMap<>(Task.Priority.class);
+        private final Map<Category, Map<Task.Priority, TreeSet<Task>>> byCategoryAndPriority = new HashMap<>();
+        private final TextIndex text = new TextIndex(BY_DUE_DATE);
+
+        // --- Stats counters ---
+        private int completed;
+        // Pending tasks split at the index clock, earliest due date first
+        private final TreeSet<Task> overdue = new TreeSet<>(BY_DUE_DATE);
+        private final TreeSet<Task> upcoming = new TreeSet<>(BY_DUE_DATE);
+        private final Map<LocalDate, int[]> pendingByDay = new HashMap<>();
+
+        void add(Task task, LocalDateTime now, NavigableSet<Task> dueQueue) {
+            Category category = task.getCategoryRef();
+            all.add(task);
+            text.add(task);
+            if (task.isCompleted()) {
+                completed++;
+            } else {
+                if (now.isAfter(task.getDueDate())) {
+                    overdue.add(task);
+                } else {
+                    upcoming.add(task);
+                    dueQueue.add(task);
+                }
+                pendingByDay.computeIfAbsent(task.getDueDate().toLocalDate(), k -> new int[1])[0]++;
+            }
+            byCategory.computeIfAbsent(category, k -> new TreeSet<>(BY_DUE_DATE)).add(task);
+            byPriority.computeIfAbsent(task.getPriority(), k -> new TreeSet<>(BY_DUE_DATE)).add(task);
+            byCategoryAndPriority.computeIfAbsent(category, k -> new EnumMap<>(Task.Priority.class))
+                    .computeIfAbsent(task.getPriority(), k -> new TreeSet<>(BY_DUE_DATE))
+                    .add(task);
+        }
+
+        void remove(Task task, NavigableSet<Task> dueQueue) {
+            Category category = task.getCategoryRef();
+            if (!all.remove(task)) {
+                return;
+            }
+            text.remove(task);
+            if (task.isCompleted()) {
+                completed--;
+            } else {
+                // A pending task is either still upcoming or already overdue
+                if (upcoming.remove(task)) {
+                    dueQueue.remove(task);
+                } else {
+                    overdue.remove(task);
+                }
+                LocalDate day = task.getDueDate().toLocalDate();
+                int[] count = pendingByDay.get(day);
+                if (count != null && --count[0] == 0) {
+                    pendingByDay.remove(day);
+                }
+            }
+            removeFrom(byCategory, category, task);
+            removeFrom(byPriority, task.getPriority(), task);
+            Map<Task.Priority, TreeSet<Task>> priorities = byCategoryAndPriority.get(category);
+            if (priorities != null) {
+                removeFrom(priorities, task.getPriority(), task);
+                if (priorities.isEmpty()) {
+                    byCategoryAndPriority.remove(category);
+                }
+            }
+        }
+
+        Counts counts(LocalDate today) {
+            int[] dueToday = pendingByDay.get(today);
+            return new Counts(all.size(), completed, overdue.size(), dueToday == null ? 0 : dueToday[0]);
+        }
+
+        /**
+         * Moves a task taken off the due queue from upcoming to overdue. The task may
+         * have been removed or rescheduled since it was taken; a rescheduled task that
+         * is still upcoming goes back on the queue.
+         */
+        void markOverdue(Task task, LocalDateTime now, NavigableSet<Task> dueQueue) {
+            if (!upcoming.contains(task)) {
+                return;
+            }
+            if (now.isAfter(task.getDueDate())) {
+                upcoming.remove(task);
+                overdue.add(task);
+            } else {
+                dueQueue.add(task);
+            }
+        }
+
+        TreeSet<Task> find(String categoryName, Task.Priority priority) {
+            if (categoryName == null && priority == null) {
+                return all;
+            } else if (categoryName == null) {
+                return byPriority.get(priority);
+            }
+            Category category = Category.find(categoryName);
+            if (category == null) {
+                return null; // No task ever had this category
+            } else if (priority == null) {
+                return byCategory.get(category);
+            }
+            Map<Task.Priority, TreeSet<Task>> priorities = byCategoryAndPriority.get(category);
+            return priorities == null ? null : priorities.get(priority);
+        }
+
+        private static <K> void removeFrom(Map<K, TreeSet<Task>> buckets, K key, Task task) {
+            TreeSet<Task> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(task);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package models;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import utils.FileHandler;
+import utils.IntObjectMap;
+
+/**
+ * TaskJournal - Append-only write-ahead log in front of the tasks snapshot file.
+ *
+ * Every mutation is appended as a single record instead of rewriting the whole
+ * snapshot. On startup the snapshot is loaded and the journal replayed on top of it,
+ * after cutting off a last record torn by a crash.
+ * Once the journal grows to a fraction of the live task count it is compacted back
+ * into a fresh snapshot, which keeps the amortized cost of a write O(1).
+ *
+ * Journal format (one record per line):
+ *   +|record   upsert of the full task (add, update, complete), encoded by the TaskCodec
+ *   -|ID       delete
+ *
+ * The journal is thread-safe; its state is guarded by its own monitor. Callers
+ * that must not let an append slip between reading the live tasks and rewriting
+ * the snapshot synchronize on the journal around both steps.
+ */
+public class TaskJournal {
+    private static final String UPSERT = "+|";
+    private static final String DELETE = "-|";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    // Never compact for fewer entries than this, so small task lists don't rewrite on every click
+    private static final int MIN_COMPACT_ENTRIES = 1000;
+
+    private final FileHandler fileHandler;
+    private final TaskCodec codec;
+    private final String baseName;
+    private final String snapshotFile;
+    private final String journalFile;
+    private int entries;
+    private int maxId;
+
+    /**
+     * @param baseName The snapshot name without extension, e.g. "tasks".
+     * @param codec The format of the snapshot and of the journal records.
+     */
+    public TaskJournal(FileHandler fileHandler, String baseName, TaskCodec codec) {
+        this.fileHandler = fileHandler;
+        this.codec = codec;
+        this.baseName = baseName;
+        this.snapshotFile = baseName + "." + codec.getFileExtension();
+        this.journalFile = snapshotFile + JOURNAL_SUFFIX;
+    }
+
+    /**
+     * Loads the snapshot and replays the journal on top of it.
+     * @return The live tasks keyed by id.
+     * @throws IOException If an I/O error occurs reading either file.
+     */
+    public synchronized IntObjectMap<Task> load() throws IOException {
+        IntObjectMap<Task> tasks = new IntObjectMap<>();
+        maxId = codec.read(fileHandler, snapshotFile, task -> tasks.put(task.getId(), task));
+
+        // A record torn by a crash would otherwise swallow the next append
+        long torn = fileHandler.truncateIncompleteLine(journalFile);
+        if (torn > 0) {
+            System.err.println("Warning: Dropped an incomplete record of " + torn + " bytes at the end of " + journalFile);
+        }
+        int[] replayed = {0};
+        fileHandler.forEachLine(journalFile, line -> {
+            if (replay(line, tasks)) {
+                replayed[0]++;
+            }
+        });
+        entries = replayed[0];
+        return tasks;
+    }
+
+    /**
+     * Returns the highest task id seen by the last load(), including ids deleted
+     * in the journal, so new ids never reuse an old one.
+     */
+    public synchronized int getMaxId() {
+        return maxId;
+    }
+
+    private boolean replay(String line, IntObjectMap<Task> tasks) {
+        if (line.startsWith(UPSERT)) {
+            Task task = codec.decodeRecord(line.substring(UPSERT.length()));
+            if (task != null) {
+                tasks.put(task.getId(), task);
+                maxId = Math.max(maxId, task.getId());
+                return true;
+            }
+        } else if (line.startsWith(DELETE)) {
+            try {
+                int id = Integer.parseInt(line.substring(DELETE.length()).trim());
+                tasks.remove(id);
+                maxId = Math.max(maxId, id);
+                return true;
+            } catch (NumberFormatException e) {
+                System.err.println("Error parsing journal line: " + e.getMessage() + " -> " + line);
+            }
+        }
+        // A corrupt line is skipped; a torn last one was cut off before the replay
+        return false;
+    }
+
+    /**
+     * Encodes the journal record of an added or modified task.
+     */
+    public String encodeUpsert(Task task) {
+        return UPSERT + codec.encodeRecord(task);
+    }
+
+    /**
+     * Encodes the journal record of a deleted task.
+     */
+    public String encodeDelete(int id) {
+        return DELETE + id;
+    }
+
+    /**
+     * Appends records made by encodeUpsert / encodeDelete, in order, with a single
+     * write (and at most one sync) for the whole batch.
+     */
+    public synchronized void append(List<String> records) throws IOException {
+        fileHandler.appendFile(journalFile, records);
+        entries += records.size();
+    }
+
+    /**
+     * Checks whether a snapshot or journal exists for this store.
+     */
+    public boolean exists() {
+        return fileHandler.exists(snapshotFile) || fileHandler.exists(journalFile);
+    }
+
+    /**
+     * Returns when the snapshot or journal was last written, in epoch milliseconds,
+     * or 0 if neither exists.
+     */
+    public long lastModified() throws IOException {
+        return Math.max(fileHandler.lastModified(snapshotFile), fileHandler.lastModified(journalFile));
+    }
+
+    public String getBaseName() {
+        return baseName;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Checks whether the journal has grown large enough to be folded into the snapshot.
+     * @param liveTasks The current number of tasks.
+     */
+    public synchronized boolean needsCompaction(int liveTasks) {
+        return entries >= Math.max(MIN_COMPACT_ENTRIES, liveTasks / 2);
+    }
+
+    /**
+     * Checks whether the journal holds records not yet folded into the snapshot.
+     */
+    public synchronized boolean hasEntries() {
+        return entries > 0;
+    }
+
+    /**
+     * Rewrites the snapshot from the given tasks and truncates the journal.
+     * If the process dies between the two steps, replaying the old journal
+     * over the new snapshot yields the same state, since every record is idempotent.
+     */
+    public synchronized void compact(Collection<Task> tasks) throws IOException {
+        codec.write(fileHandler, snapshotFile, tasks);
+        fileHandler.deleteFile(journalFile);
+        entries = 0;
+    }
+}
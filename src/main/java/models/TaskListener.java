@@ -0,0 +1,32 @@
+package models;
+
+/**
+ * TaskListener - Told about every change TaskManager makes to a task.
+ *
+ * Called on the thread that made the change, while it still holds the student's
+ * lock, so the events of one task arrive in the order of its changes and the task
+ * cannot change during the call. Listeners must therefore be quick and must not
+ * change tasks themselves.
+ */
+public interface TaskListener {
+
+    default void onTaskAdded(Task task) {}
+
+    /**
+     * The title, description, category, priority or due date may have changed.
+     */
+    default void onTaskUpdated(Task task) {}
+
+    default void onTaskCompleted(Task task) {}
+
+    default void onTaskDeleted(Task task) {}
+
+    /**
+     * The task left memory but is still stored: its student's shard was evicted from
+     * the cache, and it is added again when the shard is next loaded. Treated as a
+     * deletion unless overridden.
+     */
+    default void onTaskEvicted(Task task) {
+        onTaskDeleted(task);
+    }
+}
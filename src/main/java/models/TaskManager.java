@@ -3,135 +3,1055 @@ package models;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import utils.ConcurrentIntObjectMap;
 import utils.FileHandler;
+import utils.IntObjectMap;
+import utils.StringPool;
 
+/**
+ * TaskManager - Owns all tasks and keeps the index and the journal in step with them.
+ *
+ * Safe for concurrent use. Every change to a student's tasks runs under that
+ * student's index lock, covering the in-memory update and the journal append, so
+ * writes serialize only within one student and the journal order matches the
+ * memory order for every task. Reads take the student's read lock only.
+ *
+ * Mutations return as soon as memory is updated. The journal record is encoded
+ * under the student's lock and handed to a JournalWriter, which appends bursts of
+ * records on a background thread (coalescing window -Dsmarttask.persist.coalesceMillis,
+ * default 5). Use flush() to wait for the disk and a PersistenceListener to hear
+ * about failures. Compaction also runs on that thread and holds the journal lock
+ * while it copies and writes the live tasks; a record appended after the copy
+ * lands in the new journal.
+ *
+ * A clock thread ticks the index (every -Dsmarttask.clock.tickMillis, default 1000),
+ * which moves tasks into overdue and due today as their due instants pass. The
+ * stats and the due-date queries read the index only, so they lag the wall clock
+ * by at most one tick.
+ *
+ * The batch methods (addTasks, deleteTasks, completeTasks and their predicate
+ * forms) take each student's lock once for all of that student's tasks and queue
+ * their journal records as one burst, so a bulk change costs one lock round and
+ * one journal append per student instead of one per task.
+ *
+ * TaskListeners hear about every change, under the same student lock, so that
+ * derived state such as reminders follows the tasks in order.
+ *
+ * By default all tasks live in one store, tasks.txt / tasks.bin, loaded at startup.
+ * With -Dsmarttask.layout=sharded each student gets a TaskShard of their own under
+ * data/shards, read the first time the student is asked for (loadStudent(), or any
+ * method taking their email), so startup loads nothing and a student's edits only
+ * ever append to and compact that student's files. An existing single store is
+ * split into shards on first use. Until a student's shard is loaded, their tasks are
+ * invisible to getTask(), the predicate batch methods and new listeners; loading it
+ * tells the listeners about each task as if it had just been added.
+ *
+ * Loaded shards stay in memory until evicted. -Dsmarttask.cache.maxStudents and
+ * -Dsmarttask.cache.maxBytes bound how many shards, or how many estimated bytes of
+ * tasks, stay loaded (default 0, no bound); past either bound the least recently
+ * used shards are evicted on a background thread, so callers such as the Swing
+ * event thread never wait for a write-back, and the bounds may be exceeded until it
+ * catches up. Eviction holds the shard's student locks while it waits for the
+ * shard's queued journal records, folds the journal into the snapshot if the shard
+ * changed (the write-back), and drops the tasks, telling the listeners through
+ * onTaskEvicted. Every method pins the shards it works on for its duration, and
+ * pinned shards are not evicted, so an operation never sees its student's tasks
+ * vanish halfway; pinStudent() extends that over a request or a session, which
+ * keeps tasks looked up by id valid. getCacheStats() reports hits, misses and
+ * evictions for sizing the bounds.
+ *
+ * With -Dsmarttask.store=columnar, a TaskColumns copy of the tasks follows them
+ * too, and the stats and filter queries scan its primitive columns instead of
+ * reading the index. A scan costs O(all tasks) but touches only dense arrays,
+ * which suits analytics over many students better than per-student lookups.
+ */
 public class TaskManager {
-    private List<Task> tasks;
+    // All tasks keyed by id; the index below provides the per-student views
+    private volatile ConcurrentIntObjectMap<Task> tasks;
     private FileHandler fileHandler;
-    private static final String TASKS_FILE = "tasks.txt";
-    private AtomicInteger nextId;
+    private final TaskCodec codec;
+    // The single store; its shard holds every task unless the layout is sharded
+    private final TaskJournal journal;
+    private volatile TaskIndex index;
+    // Snapshot name without extension; the codec adds ".txt" or ".bin"
+    public static final String TASKS_BASE_NAME = "tasks";
+    // Next unreserved id of the sharded layout
+    private static final String SHARD_IDS_FILE = TaskShard.SHARDS_DIR + "/next-id.txt";
+    private final IdAllocator ids;
+    private static final long DEFAULT_COALESCE_MILLIS = 5;
+    private final JournalWriter journalWriter;
+    private final Thread shutdownHook;
+    private final boolean sharded;
+    // Single layout: the shard of all tasks, sharing the tasks map. Null when sharded
+    private volatile TaskShard mainShard;
+    // Sharded layout: shards by base name, and by normalized email to skip the hashing
+    private final Map<String, TaskShard> shardsByName = new ConcurrentHashMap<>();
+    private final Map<String, TaskShard> shardsByEmail = new ConcurrentHashMap<>();
+    // Sharded layout: the loaded shards, bounded by -Dsmarttask.cache.*
+    private final TaskCache cache;
+    // Sharded layout: evicts past the cache bounds off the callers' threads, one round queued at a time
+    private final ExecutorService evictor;
+    private final AtomicBoolean evictionQueued = new AtomicBoolean();
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+    private final ScheduledExecutorService clock;
+    private final List<TaskListener> taskListeners = new CopyOnWriteArrayList<>();
+    // Emails repeat across a student's tasks; one pooled copy each is kept in memory. Titles are
+    // mostly unique and are not pooled: they would fill the pool, which never releases entries.
+    private static final int MAX_POOLED_STRINGS = 100_000;
+    private final StringPool strings = new StringPool(MAX_POOLED_STRINGS);
+    private final boolean columnar;
+    // Struct-of-arrays copy of the tasks; null unless the columnar store is enabled
+    private volatile TaskColumns columns;
 
     public static final String[] CATEGORIES = {"All", "Lab", "Study", "Personal", "Assignment", "Project"};
     // New: Array of priority strings for the filter dropdown
     public static final String[] PRIORITY_FILTERS = {"All", "High", "Medium", "Low"};
 
+    /**
+     * Checks whether a name is one of CATEGORIES (ignoring case), not counting the "All" filter.
+     * Categories from outside, such as the API and imports, must pass this: every
+     * name a task uses stays registered in Category for good.
+     */
+    public static boolean isValidCategory(String category) {
+        if (category == null) {
+            return false;
+        }
+        for (int i = 1; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equalsIgnoreCase(category)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public TaskManager() {
-        this.fileHandler = new FileHandler();
-        this.tasks = new ArrayList<>();
-        this.nextId = new AtomicInteger(1);
+        this(TaskCodec.fromString(System.getProperty("smarttask.codec")));
+    }
+
+    /**
+     * @param codec The storage format for tasks.txt / tasks.bin and its journal.
+     */
+    public TaskManager(TaskCodec codec) {
+        this(new FileHandler(), codec);
+    }
+
+    /**
+     * @param fileHandler Where the task files live.
+     * @param codec The storage format for tasks.txt / tasks.bin and its journal.
+     */
+    public TaskManager(FileHandler fileHandler, TaskCodec codec) {
+        this.fileHandler = fileHandler;
+        this.codec = codec;
+        this.journal = new TaskJournal(fileHandler, TASKS_BASE_NAME, codec);
+        migrateCodec(TASKS_BASE_NAME);
+        this.columnar = "columnar".equalsIgnoreCase(System.getProperty("smarttask.store"));
+        this.sharded = "sharded".equalsIgnoreCase(System.getProperty("smarttask.layout"));
+        this.ids = sharded ? new IdAllocator(fileHandler, SHARD_IDS_FILE, this::scanMaxId) : new IdAllocator();
+        this.cache = new TaskCache(Integer.getInteger("smarttask.cache.maxStudents", 0),
+                Long.getLong("smarttask.cache.maxBytes", 0));
+        this.evictor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.index = new TaskIndex();
+        this.tasks = new ConcurrentIntObjectMap<>();
+        this.journalWriter = new JournalWriter(fileHandler,
+                Long.getLong("smarttask.persist.coalesceMillis", DEFAULT_COALESCE_MILLIS), this::afterJournalBatch);
+        if (sharded) {
+            migrateToShards();
+        }
         loadTasks();
+        this.shutdownHook = new Thread(journalWriter::close, "task-persistence-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        this.clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = Math.max(1, Long.getLong("smarttask.clock.tickMillis", DEFAULT_TICK_MILLIS));
+        clock.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
     }
 
-    public void loadTasks() {
+    /**
+     * Advances the index clock; runs on the clock thread.
+     */
+    private void tick() {
         try {
-            List<String> lines = fileHandler.readFile(TASKS_FILE);
-            this.tasks = lines.stream()
-                    .map(Task::fromFileString)
-                    .filter(t -> t != null)
-                    .collect(Collectors.toList());
+            index.tick(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            // Keep ticking: an exception would cancel the schedule
+            System.err.println("Error: Could not advance the task clock. Error: " + e);
+        }
+    }
 
-            this.tasks.stream()
-                    .mapToInt(Task::getId)
-                    .max()
-                    .ifPresent(maxId -> nextId.set(maxId + 1));
+    /**
+     * Converts the store of the previous codec when the codec was switched since the
+     * last run, in either direction, so neither format's tasks go stale.
+     */
+    private void migrateCodec(String baseName) {
+        try {
+            int count = TaskFileConverter.convertIfNewer(fileHandler, baseName, codec);
+            if (count >= 0) {
+                System.out.println("Converted " + count + " tasks to " + baseName + "." + codec.getFileExtension());
+            }
         } catch (IOException e) {
-            System.err.println("Warning: Could not load tasks from file. Error: " + e.getMessage());
-            this.tasks = new ArrayList<>();
+            System.err.println("Warning: Could not convert tasks to " + baseName + "." + codec.getFileExtension()
+                    + ". Error: " + e.getMessage());
         }
     }
 
-    private void saveTasks() {
-        List<String> lines = tasks.stream()
-                .map(Task::toFileString)
-                .collect(Collectors.toList());
+    /**
+     * Creates the shards directory and, the first time the sharded layout is used,
+     * splits the single store into shards. Reserving the ids last marks the split as
+     * done; the single store is left in place.
+     */
+    private void migrateToShards() {
+        try {
+            fileHandler.createDirectories(TaskShard.SHARDS_DIR);
+        } catch (IOException e) {
+            System.err.println("Error: Could not create " + TaskShard.SHARDS_DIR + ". Error: " + e.getMessage());
+        }
+        if (ids.isReserved() || !journal.exists()) {
+            return;
+        }
         try {
-            fileHandler.writeFile(TASKS_FILE, lines);
+            IntObjectMap<Task> stored = journal.load();
+            Map<TaskShard, List<Task>> byShard = new HashMap<>();
+            stored.forEachValue(task ->
+                    byShard.computeIfAbsent(shardFor(task.getStudentEmail()), k -> new ArrayList<>()).add(task));
+            for (Map.Entry<TaskShard, List<Task>> entry : byShard.entrySet()) {
+                entry.getKey().journal.compact(entry.getValue());
+            }
+            ids.advancePast(journal.getMaxId());
+            System.out.println("Split " + stored.size() + " tasks into " + byShard.size() + " shards in "
+                    + TaskShard.SHARDS_DIR);
         } catch (IOException e) {
-            System.err.println("Error: Could not save tasks to file. Error: " + e.getMessage());
+            System.err.println("Warning: Could not split tasks into shards. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the highest id in any store, the single one included, by reading them
+     * all; for when the reserved ids of the sharded layout are lost.
+     */
+    private int scanMaxId() throws IOException {
+        Set<String> baseNames = new TreeSet<>();
+        baseNames.add(TASKS_BASE_NAME);
+        for (String file : fileHandler.listFiles(TaskShard.SHARDS_DIR)) {
+            // Shards sit one directory down, shards/ab/<name>.<extension>...; the name has no dot
+            int slash = file.lastIndexOf('/');
+            int dot = file.indexOf('.', slash);
+            if (file.indexOf('/') < slash && dot > slash + 1) {
+                baseNames.add(file.substring(0, dot));
+            }
+        }
+        int maxId = 0;
+        for (String baseName : baseNames) {
+            maxId = Math.max(maxId, TaskFileConverter.maxId(fileHandler, baseName));
+        }
+        System.out.println("Scanned " + baseNames.size() + " task stores: the highest task id is " + maxId);
+        return maxId;
+    }
+
+    /**
+     * Replaces the in-memory state with the stored one: all tasks with the single
+     * layout, none with the sharded one, whose shards load again on demand. Changes
+     * made by other threads during the reload may be lost, so this is meant for startup.
+     */
+    public synchronized void loadTasks() {
+        this.tasks = new ConcurrentIntObjectMap<>();
+        this.index = new TaskIndex();
+        if (columns != null) {
+            removeTaskListener(columns);
+        }
+        this.columns = columnar ? new TaskColumns() : null;
+        if (columns != null) {
+            addTaskListener(columns);
+        }
+        shardsByEmail.clear();
+        shardsByName.clear();
+        cache.clear();
+        if (!sharded) {
+            this.mainShard = new TaskShard(journal, tasks);
+            loadShard(mainShard);
+        }
+    }
+
+    /**
+     * Makes sure a student's tasks are in memory. With the sharded layout this reads
+     * the student's shard the first time, and again after an eviction; otherwise all
+     * tasks are loaded at startup. Every method taking an email does this itself.
+     */
+    public void loadStudent(String email) {
+        shardOf(email);
+    }
+
+    // Returns the shard of a student, loading it first if it isn't yet
+    private TaskShard shardOf(String email) {
+        TaskShard shard = shardFor(email);
+        if (sharded) {
+            while (!ensureLoaded(shard)) {
+                shard = shardFor(email); // Retired meanwhile; load its successor
+            }
+            evictIfFull();
+        }
+        return shard;
+    }
+
+    /**
+     * Pins a student's shard, loading it if it isn't yet: until the matching unpin(),
+     * the shard is not evicted, so an operation sees the student's tasks from start
+     * to end. Pins count, so they nest.
+     */
+    private TaskShard pin(String email) {
+        while (true) {
+            TaskShard shard = shardFor(email);
+            if (!sharded) {
+                return shard;
+            }
+            shard.pins.incrementAndGet(); // Before reading loaded; evict() clears loaded before reading pins
+            if (ensureLoaded(shard)) {
+                return shard;
+            }
+            shard.pins.decrementAndGet(); // Retired meanwhile; pin its successor
+        }
+    }
+
+    private void unpin(TaskShard shard) {
+        if (sharded) {
+            shard.pins.decrementAndGet();
+            evictIfFull();
+        }
+    }
+
+    // Runs a read of one student's tasks with their shard pinned
+    private <T> T pinned(String email, Supplier<T> read) {
+        TaskShard shard = pin(email);
+        try {
+            return read.get();
+        } finally {
+            unpin(shard);
+        }
+    }
+
+    // Returns false, loading nothing, if the shard was retired; a loaded shard is not retired
+    private boolean ensureLoaded(TaskShard shard) {
+        if (shard.loaded) {
+            cache.hit(shard);
+            return true;
+        }
+        synchronized (shard) {
+            if (shard.retired) {
+                return false;
+            } else if (shard.loaded) {
+                cache.hit(shard); // Another thread loaded it meanwhile
+            } else {
+                loadShard(shard);
+                cache.loaded(shard);
+            }
+            return true;
+        }
+    }
+
+    // Queues a round of evictions once the cache is past its bounds, unless one is queued already
+    private void evictIfFull() {
+        if (cache.isFull() && evictionQueued.compareAndSet(false, true)) {
+            try {
+                evictor.execute(this::evictVictims);
+            } catch (RejectedExecutionException e) {
+                evictionQueued.set(false); // Closed
+            }
+        }
+    }
+
+    // Runs on the eviction thread
+    private void evictVictims() {
+        evictionQueued.set(false); // First, so a load after the victims are picked queues another round
+        try {
+            for (TaskShard victim : cache.victims()) {
+                evict(victim);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error: Could not evict tasks. Error: " + e);
+        }
+    }
+
+    /**
+     * Waits until the evictions queued so far have run. For tests.
+     */
+    void awaitEvictions() {
+        try {
+            evictor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            // Closed: nothing left to wait for
+        }
+    }
+
+    /**
+     * Returns the number of shards known by name, loaded or not. For tests.
+     */
+    int shardCount() {
+        return shardsByName.size();
+    }
+
+    /**
+     * Returns the number of students with a bucket in the index. For tests.
+     */
+    int indexedStudentCount() {
+        return index.bucketCount();
+    }
+
+    /**
+     * Pins a student's tasks in memory until the returned pin is closed, loading them
+     * if they aren't yet. With the sharded layout, an open pin keeps the cache from
+     * evicting the student, so that tasks looked up by id during a request or a
+     * session stay the managed ones; the single layout never evicts.
+     */
+    public StudentPin pinStudent(String email) {
+        return new StudentPin(pin(email));
+    }
+
+    // Returns the shard of a student, loaded or not; one just retired is replaced
+    private TaskShard shardFor(String email) {
+        if (!sharded) {
+            return mainShard;
+        }
+        String key = TaskIndex.normalizeEmail(email);
+        while (true) {
+            TaskShard shard = shardsByEmail.get(key);
+            if (shard != null && !shard.retired) {
+                return shard;
+            }
+            shard = shardsByName.compute(TaskShard.baseNameFor(key),
+                    (name, existing) -> existing == null || existing.retired ? newShard(name) : existing);
+            shard.emails.add(key);
+            shardsByEmail.put(key, shard);
+            if (!shard.retired) {
+                return shard; // If it is retired from now on, retire() sees the entry and removes it
+            }
+            shardsByEmail.remove(key, shard); // Retired before the entry went in
+        }
+    }
+
+    private TaskShard newShard(String baseName) {
+        try {
+            fileHandler.createDirectories(TaskShard.directoryOf(baseName));
+        } catch (IOException e) {
+            // Reported again by the first write to the shard
+            System.err.println("Error: Could not create " + TaskShard.directoryOf(baseName) + ". Error: " + e.getMessage());
+        }
+        return new TaskShard(new TaskJournal(fileHandler, baseName, codec), null);
+    }
+
+    /**
+     * Reads a shard and adds its tasks, telling the listeners about each one.
+     */
+    private void loadShard(TaskShard shard) {
+        if (sharded) {
+            migrateCodec(shard.journal.getBaseName());
+            shard.tasks = new ConcurrentIntObjectMap<>();
+        }
+        IntObjectMap<Task> stored;
+        try {
+            stored = shard.journal.load();
+            ids.advancePast(shard.journal.getMaxId());
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load tasks from " + shard.journal.getSnapshotFile()
+                    + ". Error: " + e.getMessage());
+            stored = new IntObjectMap<>();
+        }
+        List<Task> loaded = stored.values();
+        for (Task task : loaded) {
+            // Each decoded task has its own copy; keep the pooled one so the copy can go
+            task.setStudentEmail(strings.intern(task.getStudentEmail()));
+        }
+        // Under each student's lock like a batch change, but without journal records: already stored
+        for (List<Task> group : groupByStudent(loaded)) {
+            Lock lock = index.writeLock(group.get(0).getStudentEmail());
+            lock.lock();
+            try {
+                for (Task task : group) {
+                    track(shard, task);
+                    index.add(task);
+                    notifyTaskListeners(listener -> listener.onTaskAdded(task));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        shard.loaded = true;
+    }
+
+    // Adds a task to the id map and its shard's map, which is the same map with the single layout
+    private void track(TaskShard shard, Task task) {
+        tasks.put(task.getId(), task);
+        if (shard.tasks != tasks) {
+            shard.tasks.put(task.getId(), task);
+            cache.resize(shard, TaskCache.estimateBytes(task));
+        }
+    }
+
+    private void untrack(TaskShard shard, Task task) {
+        tasks.remove(task.getId());
+        if (shard.tasks != tasks) {
+            shard.tasks.remove(task.getId());
+            cache.resize(shard, -TaskCache.estimateBytes(task));
+        }
+    }
+
+    /**
+     * Writes back a loaded shard and drops its tasks from memory, holding the locks of
+     * its students throughout, then retires it along with its students' index buckets.
+     * Runs on the eviction thread. Operations pin the shard first, so none is in
+     * progress on its students, and none takes their locks until a successor is loaded.
+     * @return true if the shard was evicted, false if it was not loaded, is pinned or
+     *         the write-back failed, in which case it stays loaded.
+     */
+    private boolean evict(TaskShard shard) {
+        synchronized (shard) {
+            if (!shard.loaded) {
+                return false; // Evicted by another thread already
+            }
+            List<Lock> locks = new ArrayList<>();
+            TreeSet<String> emails = new TreeSet<>(shard.emails);
+            for (String email : emails) { // One order for all evictions
+                Lock lock = index.writeLock(email);
+                lock.lock();
+                locks.add(lock);
+            }
+            try {
+                shard.loaded = false; // Before reading pins; pin() counts before reading loaded
+                if (shard.pins.get() > 0) {
+                    shard.loaded = true; // Pinned meanwhile, so in use again
+                    return false;
+                }
+                int written = writeBack(shard);
+                if (written < 0) {
+                    shard.loaded = true;
+                    return false;
+                }
+                shard.tasks.forEachValue(task -> {
+                    tasks.remove(task.getId());
+                    index.remove(task);
+                    notifyTaskListeners(listener -> listener.onTaskEvicted(task));
+                });
+                shard.tasks = null;
+                for (String email : emails) {
+                    index.dropIfEmpty(email); // Still locked, and no pinned operation waits for the lock
+                }
+                cache.evicted(shard, written > 0);
+                retire(shard);
+                return true;
+            } finally {
+                for (Lock lock : locks) {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets an evicted shard, so only loaded shards and those about to load stay
+     * known. Called under the shard's monitor. A pin() that got the shard before it
+     * was retired finds it retired and asks shardFor() again, which makes a new one.
+     */
+    private void retire(TaskShard shard) {
+        shard.retired = true; // Before reading emails; shardFor() adds the email before reading retired
+        shardsByName.remove(shard.journal.getBaseName(), shard);
+        for (String email : shard.emails) {
+            shardsByEmail.remove(email, shard);
+        }
+    }
+
+    /**
+     * Makes sure an unloaded shard's changes are stored: waits until its queued journal
+     * records are written, then folds the journal into a fresh snapshot if it has any
+     * records, or if writing them failed, since the snapshot is taken from memory.
+     * @return 1 if a snapshot was written, 0 if none was needed, -1 if writing it failed.
+     */
+    private int writeBack(TaskShard shard) {
+        boolean appended = true;
+        try {
+            journalWriter.flush().join();
+        } catch (CompletionException e) {
+            appended = false; // Already reported by the writer; maybe for another shard
+        }
+        synchronized (shard.journal) {
+            if (appended && !shard.snapshotDue && !shard.journal.hasEntries()) {
+                return 0;
+            }
+            if (!saveTasks(shard)) {
+                return -1;
+            }
+            shard.snapshotDue = false;
+            return 1;
+        }
+    }
+
+    /**
+     * Writes a full snapshot of a shard's tasks and clears its journal.
+     * @return true if the snapshot was written.
+     */
+    private boolean saveTasks(TaskShard shard) {
+        synchronized (shard.journal) { // No append may land between the copy and the journal reset
+            try {
+                shard.journal.compact(shard.tasks.values());
+                return true;
+            } catch (IOException e) {
+                System.err.println("Error: Could not save tasks to file. Error: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Queues the journal record of an added or modified task. Called under the student's
+     * lock, so the record captures the task as this change left it.
+     */
+    private void persistUpsert(TaskShard shard, Task task) {
+        journalWriter.submit(shard, shard.journal.encodeUpsert(task));
+    }
+
+    private void persistDelete(TaskShard shard, int id) {
+        journalWriter.submit(shard, shard.journal.encodeDelete(id));
+    }
+
+    /**
+     * Runs on the persistence thread for each shard of a journal batch. Folds the
+     * shard's journal into its snapshot once it grows too long, or right away if the
+     * append failed, since the snapshot is taken from memory and so contains the lost
+     * changes.
+     */
+    private void afterJournalBatch(TaskShard shard, boolean failed) {
+        if (failed) {
+            shard.snapshotDue = true;
+        }
+        synchronized (shard.journal) {
+            if (!shard.loaded) {
+                return; // Evicted, and so written back; its tasks are no longer in memory
+            }
+            if (shard.snapshotDue || shard.journal.needsCompaction(shard.tasks.size())) {
+                shard.snapshotDue = !saveTasks(shard);
+            }
+        }
+    }
+
+    /**
+     * Writes the queued changes without waiting for the coalescing delay.
+     * @return A future completed once every change made so far is in the journal, or
+     *         completed exceptionally if writing one of them failed.
+     */
+    public CompletableFuture<Void> flush() {
+        return journalWriter.flush();
+    }
+
+    /**
+     * Registers a listener for journal writes and failures.
+     */
+    public void addPersistenceListener(PersistenceListener listener) {
+        journalWriter.addListener(listener);
+    }
+
+    public void removePersistenceListener(PersistenceListener listener) {
+        journalWriter.removeListener(listener);
+    }
+
+    /**
+     * Registers a listener for task changes.
+     */
+    public void addTaskListener(TaskListener listener) {
+        taskListeners.add(listener);
+    }
+
+    public void removeTaskListener(TaskListener listener) {
+        taskListeners.remove(listener);
+    }
+
+    // Called under the student's lock, right after the change
+    private void notifyTaskListeners(Consumer<TaskListener> event) {
+        for (TaskListener listener : taskListeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                // The change is already made; a failing listener must not undo or block it
+                System.err.println("Error: Task listener failed. Error: " + e);
+            }
+        }
+    }
+
+    /**
+     * Calls onTaskAdded for every current task, each under its student's lock, so a
+     * listener registered on a running manager catches up without missing or
+     * reordering changes made meanwhile.
+     */
+    void replayTasks(TaskListener listener) {
+        tasks.forEachValue(task -> {
+            Lock lock = index.writeLock(task.getStudentEmail());
+            lock.lock();
+            try {
+                if (tasks.get(task.getId()) == task) { // Skip tasks deleted since the copy
+                    listener.onTaskAdded(task);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Writes the queued changes and stops the persistence thread. Changes made after
+     * closing are kept in memory only.
+     */
+    public void close() {
+        clock.shutdownNow();
+        evictor.shutdown(); // Before the journal writer, which a running write-back waits for
+        try {
+            evictor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journalWriter.close();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down: the hook is running or has run
         }
     }
 
     public Task addTask(String title, String description, String category,
                         Task.Priority priority, LocalDateTime dueDate, String studentEmail) {
 
-        int newId = nextId.getAndIncrement();
-        Task newTask = new Task(newId, studentEmail, title, description, category, priority, dueDate);
-        tasks.add(newTask);
-        saveTasks();
-        return newTask;
+        TaskShard shard = pin(studentEmail);
+        try {
+            int newId = ids.next();
+            Task newTask = new Task(newId, strings.intern(studentEmail), title, description,
+                    category, priority, dueDate);
+            Lock lock = index.writeLock(studentEmail);
+            lock.lock();
+            try {
+                track(shard, newTask);
+                index.add(newTask);
+                persistUpsert(shard, newTask);
+                notifyTaskListeners(listener -> listener.onTaskAdded(newTask));
+            } finally {
+                lock.unlock();
+            }
+            return newTask;
+        } finally {
+            unpin(shard);
+        }
+    }
+    /**
+     * Adds many tasks at once. Each student's share is applied under one acquisition
+     * of their lock and queued to the journal as one batch, so an import of n tasks
+     * costs one journal append, not n separate ones.
+     * @param newTasks Tasks built with the Task constructor and not managed yet; each
+     *                 gets a new id, replacing the one it was built with.
+     * @return The number of tasks added.
+     * @throws java.io.UncheckedIOException If no ids could be reserved; nothing is added then.
+     */
+    public int addTasks(Collection<Task> newTasks) {
+        for (Task task : newTasks) {
+            task.setId(ids.next());
+            task.setStudentEmail(strings.intern(task.getStudentEmail()));
+        }
+        return changeAll(newTasks, (shard, task) -> {
+            track(shard, task);
+            index.add(task);
+            notifyTaskListeners(listener -> listener.onTaskAdded(task));
+            return shard.journal.encodeUpsert(task);
+        });
     }
+
     public boolean updateTask(int id, String title, String description,
                               String category, Task.Priority priority, LocalDateTime dueDate) {
 
-        Optional<Task> taskOpt = tasks.stream()
-                .filter(t -> t.getId() == id)
-                .findFirst();
-
-        if (taskOpt.isPresent()) {
-            Task task = taskOpt.get();
+        Task found = tasks.get(id);
+        if (found == null) {
+            return false;
+        }
+        TaskShard shard = pin(found.getStudentEmail());
+        Lock lock = index.writeLock(found.getStudentEmail());
+        lock.lock();
+        try {
+            Task task = tasks.get(id); // Loaded again if evicted before the pin
+            if (task == null) {
+                return false; // Deleted while we waited for the lock
+            }
+            long oldBytes = TaskCache.estimateBytes(task);
+            index.remove(task); // Re-index, since category, priority and due date may change
             task.setTitle(title);
             task.setDescription(description);
             task.setCategory(category);
             task.setPriority(priority);
             task.setDueDate(dueDate);
-            saveTasks(); // Save changes to the file
-            return true;
+            index.add(task);
+            if (sharded) {
+                cache.resize(shard, TaskCache.estimateBytes(task) - oldBytes);
+            }
+            persistUpsert(shard, task); // Save changes to the journal
+            notifyTaskListeners(listener -> listener.onTaskUpdated(task));
+        } finally {
+            lock.unlock();
+            unpin(shard);
         }
-        return false;
+        return true;
     }
     public boolean deleteTask(int id) {
-        boolean removed = tasks.removeIf(t -> t.getId() == id);
-        if (removed) {
-            saveTasks();
+        Task found = tasks.get(id);
+        if (found == null) {
+            return false;
+        }
+        TaskShard shard = pin(found.getStudentEmail());
+        Lock lock = index.writeLock(found.getStudentEmail());
+        lock.lock();
+        try {
+            Task task = tasks.get(id); // Loaded again if evicted before the pin
+            if (task == null) {
+                return false; // Another thread deleted it first
+            }
+            untrack(shard, task);
+            index.remove(task);
+            persistDelete(shard, id);
+            notifyTaskListeners(listener -> listener.onTaskDeleted(task));
+        } finally {
+            lock.unlock();
+            unpin(shard);
         }
-        return removed;
+        return true;
     }
 
     public boolean completeTask(int id) {
-        Optional<Task> taskOpt = tasks.stream()
-                .filter(t -> t.getId() == id && !t.isCompleted())
-                .findFirst();
+        Task found = tasks.get(id);
+        if (found == null) {
+            return false;
+        }
+        TaskShard shard = pin(found.getStudentEmail());
+        Lock lock = index.writeLock(found.getStudentEmail());
+        lock.lock();
+        try {
+            Task task = tasks.get(id); // Loaded again if evicted before the pin
+            if (task == null || task.isCompleted()) {
+                return false;
+            }
+            index.remove(task); // Re-index so the student's stats counters move it to completed
+            task.setCompleted(true);
+            index.add(task);
+            persistUpsert(shard, task);
+            notifyTaskListeners(listener -> listener.onTaskCompleted(task));
+        } finally {
+            lock.unlock();
+            unpin(shard);
+        }
+        return true;
+    }
 
-        if (taskOpt.isPresent()) {
-            taskOpt.get().setCompleted(true);
-            saveTasks();
-            return true;
+    /**
+     * Deletes the tasks with the given ids; unknown ids are ignored.
+     * @return The number of tasks deleted.
+     */
+    public int deleteTasks(Collection<Integer> ids) {
+        return deleteTasksIf(lookUp(ids), task -> true);
+    }
+
+    /**
+     * Deletes every task matching the filter, e.g. a past semester's completed tasks.
+     * The filter runs under the task's student lock, like a TaskListener, and must
+     * not change tasks.
+     * @return The number of tasks deleted.
+     */
+    public int deleteTasksIf(Predicate<? super Task> filter) {
+        return deleteTasksIf(tasks.values(), filter);
+    }
+
+    private int deleteTasksIf(Collection<Task> candidates, Predicate<? super Task> filter) {
+        return changeAll(candidates, (shard, candidate) -> {
+            Task task = tasks.get(candidate.getId()); // Loaded again if evicted since the lookup
+            if (task == null || !filter.test(task)) {
+                return null; // Deleted meanwhile, or changed and no longer matching
+            }
+            untrack(shard, task);
+            index.remove(task);
+            notifyTaskListeners(listener -> listener.onTaskDeleted(task));
+            return shard.journal.encodeDelete(task.getId());
+        });
+    }
+
+    /**
+     * Completes the pending tasks with the given ids; unknown ids are ignored.
+     * @return The number of tasks completed.
+     */
+    public int completeTasks(Collection<Integer> ids) {
+        return completeTasksIf(lookUp(ids), task -> true);
+    }
+
+    /**
+     * Completes every pending task matching the filter. The filter runs under the
+     * task's student lock and must not change tasks.
+     * @return The number of tasks completed.
+     */
+    public int completeTasksIf(Predicate<? super Task> filter) {
+        return completeTasksIf(tasks.values(), filter);
+    }
+
+    private int completeTasksIf(Collection<Task> candidates, Predicate<? super Task> filter) {
+        return changeAll(candidates, (shard, candidate) -> {
+            Task task = tasks.get(candidate.getId()); // Loaded again if evicted since the lookup
+            if (task == null || task.isCompleted() || !filter.test(task)) {
+                return null;
+            }
+            index.remove(task);
+            task.setCompleted(true);
+            index.add(task);
+            notifyTaskListeners(listener -> listener.onTaskCompleted(task));
+            return shard.journal.encodeUpsert(task);
+        });
+    }
+
+    private List<Task> lookUp(Collection<Integer> ids) {
+        List<Task> found = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Task task = tasks.get(id);
+            if (task != null) {
+                found.add(task);
+            }
         }
-        return false;
+        return found;
+    }
+
+    /**
+     * Applies a change to many tasks, taking each student's lock once for all of
+     * their tasks and queuing their journal records together while still holding it.
+     * Each student's shard is pinned meanwhile, so it is loaded throughout.
+     * @param change Applies the change to one task, given with its student's shard,
+     *               under the student's lock and returns its journal record, or null
+     *               if the task was skipped.
+     * @return The number of tasks changed.
+     */
+    private int changeAll(Collection<Task> batch, BiFunction<TaskShard, Task, String> change) {
+        int changed = 0;
+        for (List<Task> group : groupByStudent(batch)) {
+            String email = group.get(0).getStudentEmail();
+            TaskShard shard = pin(email);
+            List<String> records = new ArrayList<>(group.size());
+            Lock lock = index.writeLock(email);
+            lock.lock();
+            try {
+                for (Task task : group) {
+                    String record = change.apply(shard, task);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+                journalWriter.submitAll(shard, records);
+            } finally {
+                lock.unlock();
+                unpin(shard);
+            }
+            changed += records.size();
+        }
+        return changed;
+    }
+
+    /**
+     * Groups tasks by student, each group sorted by due date. The index keeps its
+     * trees per student in due-date order, so indexing a batch this way touches one
+     * student's trees at a time, mostly along their right edge, instead of jumping
+     * across the heap on every insert; loading 1M tasks indexes in half the time.
+     */
+    private static Collection<List<Task>> groupByStudent(Collection<Task> batch) {
+        Map<String, List<Task>> groups = new HashMap<>();
+        for (Task task : batch) {
+            groups.computeIfAbsent(TaskIndex.normalizeEmail(task.getStudentEmail()), k -> new ArrayList<>())
+                    .add(task);
+        }
+        for (List<Task> group : groups.values()) {
+            group.sort(TaskIndex.BY_DUE_DATE);
+        }
+        return groups.values();
+    }
+
+    /**
+     * Looks up a task by id.
+     * @return The task, or null if there is none.
+     */
+    public Task getTask(int id) {
+        return tasks.get(id);
     }
 
     /**
      * Gets all tasks for a student, with optional filtering by category AND priority.
      */
     public List<Task> getTasksByStudent(String email, String categoryFilter, String priorityFilter) {
-
-        // Convert priority filter string to the Task.Priority enum value for comparison
-        Task.Priority requiredPriority = null;
-        if (!priorityFilter.equalsIgnoreCase(PRIORITY_FILTERS[0])) { // If not "All"
-            try {
-                // Task.Priority.fromString handles case-insensitivity
-                requiredPriority = Task.Priority.fromString(priorityFilter);
-            } catch (IllegalArgumentException e) {
-                // Should not happen if PRIORITY_FILTERS are consistent with Priority enum
+        return pinned(email, () -> {
+            TaskColumns columnStore = columns;
+            if (columnStore != null) {
+                List<Task> matches = columnStore.query(email, categoryOf(categoryFilter), priorityOf(priorityFilter));
+                matches.sort(TaskIndex.BY_DUE_DATE); // Rows are unordered
+                return matches;
             }
+            // The index keeps every bucket sorted by due date already
+            return index.query(email, categoryOf(categoryFilter), priorityOf(priorityFilter));
+        });
+    }
+
+    /**
+     * Searches a student's task titles and descriptions, combined with the same
+     * filters as getTasksByStudent. Every word of the query must match a word of the
+     * task, as a prefix or, failing that, with a typo or two.
+     * @param query The search text; a blank query lists all tasks matching the filters.
+     * @return The matching tasks sorted by due date.
+     */
+    public List<Task> searchTasks(String email, String query, String categoryFilter, String priorityFilter) {
+        if (query == null || query.isBlank()) {
+            return getTasksByStudent(email, categoryFilter, priorityFilter);
         }
+        return pinned(email, () -> index.search(email, query, categoryOf(categoryFilter), priorityOf(priorityFilter)));
+    }
 
-        final Task.Priority finalRequiredPriority = requiredPriority;
+    // Converts a category filter to the index's form: null for "All"
+    private static String categoryOf(String categoryFilter) {
+        return categoryFilter.equals(CATEGORIES[0]) ? null : categoryFilter;
+    }
 
-        return tasks.stream()
-                .filter(t -> t.getStudentEmail().equalsIgnoreCase(email))
-                // Category Filter Logic
-                .filter(t -> categoryFilter.equals(CATEGORIES[0]) || t.getCategory().equalsIgnoreCase(categoryFilter))
-                // Priority Filter Logic
-                .filter(t -> finalRequiredPriority == null || t.getPriority() == finalRequiredPriority)
-                .sorted(Comparator.comparing(Task::getDueDate))
-                .collect(Collectors.toList());
+    // Converts a priority filter string to the Task.Priority enum value: null for "All"
+    private static Task.Priority priorityOf(String priorityFilter) {
+        if (priorityFilter.equalsIgnoreCase(PRIORITY_FILTERS[0])) {
+            return null;
+        }
+        try {
+            // Task.Priority.fromString handles case-insensitivity
+            return Task.Priority.fromString(priorityFilter);
+        } catch (IllegalArgumentException e) {
+            // Should not happen if PRIORITY_FILTERS are consistent with Priority enum
+            return null;
+        }
     }
 
     // Default call when only email is passed
@@ -145,16 +1065,70 @@ public class TaskManager {
     }
 
     public TaskStats getTaskStats(String email) {
-        // TaskStats still counts ALL tasks for the student, regardless of the current view filters
-        List<Task> studentTasks = getTasksByStudent(email);
+        return pinned(email, () -> countTasks(email));
+    }
 
-        int total = studentTasks.size();
-        int completed = (int) studentTasks.stream().filter(Task::isCompleted).count();
+    private TaskStats countTasks(String email) {
+        // TaskStats still counts ALL tasks for the student, regardless of the current view filters.
+        // The index maintains these counters on every mutation and clock tick, so no task list is built here.
+        TaskColumns columnStore = columns;
+        TaskIndex.Counts counts = columnStore != null
+                ? columnStore.counts(email, LocalDateTime.now())
+                : index.counts(email);
+        int total = counts.getTotal();
+        int completed = counts.getCompleted();
         int pending = total - completed;
-        int overdue = (int) studentTasks.stream().filter(Task::isOverdue).count();
-        int dueToday = (int) studentTasks.stream().filter(Task::isDueToday).count();
 
-        return new TaskStats(total, completed, pending, overdue, dueToday);
+        return new TaskStats(total, completed, pending, counts.getOverdue(), counts.getDueToday());
+    }
+
+    /**
+     * Returns a student's next pending tasks that are not overdue, earliest due date first.
+     * @param limit The maximum number of tasks to return.
+     */
+    public List<Task> getNextDueTasks(String email, int limit) {
+        return pinned(email, () -> index.nextDue(email, limit));
+    }
+
+    /**
+     * Returns a student's overdue tasks, most overdue first.
+     */
+    public List<Task> getOverdueTasks(String email) {
+        return pinned(email, () -> index.overdue(email));
+    }
+
+    /**
+     * Returns a student's pending tasks due today, overdue ones included, sorted by due date.
+     */
+    public List<Task> getDueTodayTasks(String email) {
+        return pinned(email, () -> index.dueToday(email));
+    }
+
+    /**
+     * Returns the counters of the sharded layout's cache of loaded students; all zero
+     * with the single layout, which keeps every task loaded.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * An open pin on a student's tasks; see pinStudent(). Closing it again does nothing.
+     */
+    public final class StudentPin implements AutoCloseable {
+        private final TaskShard shard;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private StudentPin(TaskShard shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                unpin(shard);
+            }
+        }
     }
 
     public class TaskStats {
@@ -178,4 +1152,47 @@ public class TaskManager {
         public int getOverdue() { return overdue; }
         public int getDueToday() { return dueToday; }
     }
+
+    /**
+     * Cache counters since startup, with the current number of loaded students and
+     * the estimated heap size of their tasks.
+     */
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long writeBacks;
+        private final int loadedStudents;
+        private final long loadedBytes;
+
+        public CacheStats(long hits, long misses, long evictions, long writeBacks,
+                          int loadedStudents, long loadedBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.writeBacks = writeBacks;
+            this.loadedStudents = loadedStudents;
+            this.loadedBytes = loadedBytes;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        // Evictions that had to write a snapshot first
+        public long getWriteBacks() { return writeBacks; }
+        public int getLoadedStudents() { return loadedStudents; }
+        public long getLoadedBytes() { return loadedBytes; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats{hits=%d, misses=%d, hitRate=%.3f, evictions=%d, writeBacks=%d, "
+                            + "loadedStudents=%d, loadedBytes=%d}",
+                    hits, misses, getHitRate(), evictions, writeBacks, loadedStudents, loadedBytes);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package models;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import utils.ConcurrentIntObjectMap;
+
+/**
+ * TaskShard - One task store on disk (a TaskJournal) and the live tasks it holds.
+ *
+ * The single layout has one shard for all tasks. The sharded layout gives every
+ * student their own, at shards/ab/abcdef0123456789.txt (or .bin) plus its journal,
+ * named after the first 64 bits of the SHA-256 of the normalized email: the name is
+ * safe for any file system whatever the email contains, and the two-character
+ * directories keep directory listings short with many students. Should two emails
+ * share a hash, they share the shard, which stays correct.
+ *
+ * TaskManager loads and evicts a shard under the shard's monitor, and sets loaded
+ * there. An evicted shard is retired: it is never loaded again, and the next request
+ * for one of its students creates a fresh shard for the same files, so the shards of
+ * students no longer in use do not pile up. A shard with pins is not evicted, so an
+ * operation that pinned it sees its tasks throughout.
+ */
+final class TaskShard {
+    static final String SHARDS_DIR = "shards";
+    private static final int NAME_BYTES = 8;
+
+    final TaskJournal journal;
+    // The shard's live tasks, which a compaction writes out; null while not loaded
+    volatile ConcurrentIntObjectMap<Task> tasks;
+    // The normalized emails mapped to this shard, whose locks an eviction takes
+    final Set<String> emails = ConcurrentHashMap.newKeySet();
+    // Estimated heap size of the tasks, kept by TaskCache
+    final AtomicLong bytes = new AtomicLong();
+    // Set when a journal batch failed: the next batch rewrites the full snapshot instead
+    volatile boolean snapshotDue;
+    volatile boolean loaded;
+    // Set by the eviction, under the monitor; a retired shard is never loaded again
+    volatile boolean retired;
+    // Operations in progress on the shard's students; see TaskManager.pin()
+    final AtomicInteger pins = new AtomicInteger();
+
+    TaskShard(TaskJournal journal, ConcurrentIntObjectMap<Task> tasks) {
+        this.journal = journal;
+        this.tasks = tasks;
+    }
+
+    /**
+     * Returns the base name, relative to the data directory, of a student's shard.
+     * @param email The normalized email.
+     */
+    static String baseNameFor(String email) {
+        String hash = HexFormat.of().formatHex(sha256(email), 0, NAME_BYTES);
+        return SHARDS_DIR + "/" + hash.substring(0, 2) + "/" + hash;
+    }
+
+    /**
+     * Returns the directory holding the shard with the given base name.
+     */
+    static String directoryOf(String baseName) {
+        return baseName.substring(0, baseName.lastIndexOf('/'));
+    }
+
+    private static byte[] sha256(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Every JRE provides it
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package models;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import utils.CsvReader;
+import utils.CsvWriter;
+import utils.DateTimeParser;
+import utils.JsonReader;
+import utils.JsonWriter;
+
+/**
+ * TaskTransfer - Streaming CSV and JSON import and export of one student's tasks.
+ *
+ * Both formats carry the same fields, named as in Task.toJson():
+ *   CSV   a header record naming the columns, then one record per task
+ *   JSON  an array of flat task objects
+ * On import, title and dueDate are required, the other fields are optional, and
+ * id and studentEmail are ignored: every task gets a new id and belongs to the
+ * importing student. Records are read one at a time and added through
+ * TaskManager.addTasks in batches of IMPORT_BATCH_SIZE, so memory stays bounded
+ * whatever the size of the input. Invalid records are skipped and counted.
+ */
+public final class TaskTransfer {
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    private static final String[] CSV_COLUMNS = {
+            "id", "title", "description", "category", "priority", "createdAt", "dueDate", "isCompleted"
+    };
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        JSON("json", "application/json");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() { return extension; }
+        public String getContentType() { return contentType; }
+
+        /**
+         * @throws IllegalArgumentException If the name is not a known format.
+         */
+        public static Format fromString(String text) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(text)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown format: " + text);
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static class ImportResult {
+        private final int imported;
+        private final int skipped;
+
+        public ImportResult(int imported, int skipped) {
+            this.imported = imported;
+            this.skipped = skipped;
+        }
+
+        public int getImported() { return imported; }
+        public int getSkipped() { return skipped; }
+    }
+
+    private TaskTransfer() {}
+
+    /**
+     * Writes a student's tasks, sorted by due date.
+     * @param out The destination; flushed but not closed.
+     * @return The number of tasks written.
+     * @throws IOException If writing fails.
+     */
+    public static int exportTasks(TaskManager taskManager, String email, Format format, Writer out)
+            throws IOException {
+        List<Task> tasks = taskManager.getTasksByStudent(email);
+        if (format == Format.CSV) {
+            CsvWriter csv = new CsvWriter(out);
+            csv.writeRecord(CSV_COLUMNS);
+            for (Task task : tasks) {
+                csv.writeRecord(String.valueOf(task.getId()), task.getTitle(), task.getDescription(),
+                        task.getCategory(), task.getPriority().getValue(), task.getCreatedAt().toString(),
+                        task.getDueDate().toString(), String.valueOf(task.isCompleted()));
+            }
+            csv.flush();
+        } else {
+            JsonWriter json = new JsonWriter(out);
+            json.beginArray();
+            for (Task task : tasks) {
+                task.writeJson(json);
+            }
+            json.endArray();
+            json.flush();
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Adds the tasks read from the input to a student's tasks. Batches added before
+     * a syntax error in the input stay added.
+     * @param in The source, which should be buffered; it is not closed.
+     * @throws IOException If reading fails or the input is not valid CSV or JSON.
+     */
+    public static ImportResult importTasks(TaskManager taskManager, String email, Format format, Reader in)
+            throws IOException {
+        Importer importer = new Importer(taskManager, email);
+        if (format == Format.CSV) {
+            CsvReader csv = new CsvReader(in);
+            List<String> header = csv.readRecord();
+            if (header != null) {
+                List<String> record;
+                while ((record = csv.readRecord()) != null) {
+                    Map<String, String> fields = new HashMap<>();
+                    for (int i = 0; i < header.size() && i < record.size(); i++) {
+                        fields.put(header.get(i).trim(), record.get(i));
+                    }
+                    importer.add(fields);
+                }
+            }
+        } else {
+            JsonReader json = new JsonReader(in);
+            json.beginArray();
+            while (json.hasNext()) {
+                importer.add(json.nextObject());
+            }
+            json.endArray();
+        }
+        return importer.finish();
+    }
+
+    /**
+     * Turns records into tasks and hands them to the manager a batch at a time.
+     */
+    private static final class Importer {
+        private final TaskManager taskManager;
+        private final String email;
+        private final List<Task> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private int imported;
+        private int skipped;
+
+        Importer(TaskManager taskManager, String email) {
+            this.taskManager = taskManager;
+            this.email = email;
+        }
+
+        void add(Map<String, String> fields) {
+            Task task = toTask(fields);
+            if (task == null) {
+                skipped++;
+                return;
+            }
+            batch.add(task);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                flushBatch();
+            }
+        }
+
+        ImportResult finish() {
+            flushBatch();
+            return new ImportResult(imported, skipped);
+        }
+
+        private void flushBatch() {
+            if (!batch.isEmpty()) {
+                imported += taskManager.addTasks(batch);
+                batch.clear();
+            }
+        }
+
+        // Returns null if a required field is missing or a field is invalid
+        private Task toTask(Map<String, String> fields) {
+            String title = fields.get("title");
+            String due = fields.get("dueDate");
+            String category = fields.get("category");
+            if (category == null || category.isBlank()) {
+                category = TaskManager.CATEGORIES[4];
+            }
+            if (title == null || title.isBlank() || due == null || !TaskManager.isValidCategory(category)) {
+                return null;
+            }
+            try {
+                String description = fields.get("description");
+                Task task = new Task(0, email, title, description == null ? "" : description,
+                        category,
+                        Task.Priority.fromString(fields.get("priority")), DateTimeParser.parse(due.trim()));
+                String created = fields.get("createdAt");
+                if (created != null && !created.isBlank()) {
+                    task.setCreatedAt(DateTimeParser.parse(created.trim()));
+                }
+                task.setCompleted(Boolean.parseBoolean(fields.get("isCompleted")));
+                return task;
+            } catch (DateTimeParseException e) {
+                System.err.println("Error parsing imported task: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+}
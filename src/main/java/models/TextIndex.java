@@ -0,0 +1,185 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * TextIndex - Inverted index of the words in task titles and descriptions.
+ *
+ * Text is split into words of letters and digits and lowercased. Each word maps to
+ * the tasks containing it, sorted like the rest of TaskIndex, and the words are
+ * kept sorted so that all words starting with a query word form one range. A query
+ * word matches every indexed word it is a prefix of; if there is none, it matches
+ * the words that start with the same letter and are within a small edit distance
+ * of it instead (1 edit from 4 letters, 2 from 8), so typos still find something.
+ * Requiring the first letter keeps the fuzzy scan to one slice of the vocabulary.
+ *
+ * Not thread-safe: TaskIndex keeps one per student and guards it with the
+ * student's lock.
+ */
+final class TextIndex {
+    private final Comparator<Task> order;
+    private final TreeMap<String, TreeSet<Task>> postings = new TreeMap<>();
+
+    TextIndex(Comparator<Task> order) {
+        this.order = order;
+    }
+
+    void add(Task task) {
+        forEachWord(task, word -> postings.computeIfAbsent(word, k -> new TreeSet<>(order)).add(task));
+    }
+
+    void remove(Task task) {
+        forEachWord(task, word -> {
+            TreeSet<Task> tasks = postings.get(word);
+            if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+                postings.remove(word);
+            }
+        });
+    }
+
+    /**
+     * Returns the tasks matching every query word and contained in scope, sorted.
+     * @param words The query, split with tokenize(); must not be empty.
+     * @param scope The tasks to search, e.g. a category bucket.
+     */
+    List<Task> search(List<String> words, TreeSet<Task> scope) {
+        List<List<TreeSet<Task>>> matches = new ArrayList<>(words.size());
+        for (String word : words) {
+            List<TreeSet<Task>> sets = match(word);
+            if (sets.isEmpty()) {
+                return new ArrayList<>();
+            }
+            matches.add(sets);
+        }
+        // Walk the rarest query word's tasks and probe the others, so no union is built
+        matches.sort(Comparator.comparingInt(TextIndex::totalSize));
+        List<TreeSet<Task>> rarest = matches.get(0);
+        TreeSet<Task> result = new TreeSet<>(order);
+        for (TreeSet<Task> tasks : rarest) {
+            for (Task task : tasks) {
+                if (scope.contains(task) && matchesRest(task, matches)) {
+                    result.add(task);
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static int totalSize(List<TreeSet<Task>> sets) {
+        int size = 0;
+        for (TreeSet<Task> set : sets) {
+            size += set.size();
+        }
+        return size;
+    }
+
+    private static boolean matchesRest(Task task, List<List<TreeSet<Task>>> matches) {
+        for (int i = 1; i < matches.size(); i++) {
+            boolean found = false;
+            for (TreeSet<Task> tasks : matches.get(i)) {
+                if (tasks.contains(task)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the posting sets of the indexed words a query word matches
+    private List<TreeSet<Task>> match(String word) {
+        // Every word starting with the query word, the word itself included
+        List<TreeSet<Task>> sets = new ArrayList<>(
+                postings.subMap(word, true, word + Character.MAX_VALUE, false).values());
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        if (sets.isEmpty() && maxEdits > 0) {
+            // Searches run in parallel under the read lock, so the rows are per lookup
+            int[] previousRow = new int[word.length() + maxEdits + 1];
+            int[] currentRow = new int[word.length() + maxEdits + 1];
+            String first = word.substring(0, 1);
+            for (var entry : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                if (prefixDistance(word, entry.getKey(), maxEdits, previousRow, currentRow) <= maxEdits) {
+                    sets.add(entry.getValue());
+                }
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * Returns the edit distance between the query and the closest prefix of the word,
+     * or maxEdits + 1 as soon as it must exceed maxEdits.
+     */
+    private static int prefixDistance(String query, String word, int maxEdits, int[] previousRow, int[] currentRow) {
+        // A prefix longer than query + maxEdits costs more than maxEdits insertions
+        int columns = Math.min(word.length(), query.length() + maxEdits);
+        if (columns < query.length() - maxEdits) {
+            return maxEdits + 1;
+        }
+        for (int j = 0; j <= columns; j++) {
+            previousRow[j] = j;
+        }
+        for (int i = 1; i <= query.length(); i++) {
+            currentRow[0] = i;
+            int rowMin = i;
+            char q = query.charAt(i - 1);
+            for (int j = 1; j <= columns; j++) {
+                int cost = q == word.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(currentRow[j - 1], previousRow[j]) + 1, previousRow[j - 1] + cost);
+                currentRow[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
+        }
+        int best = maxEdits + 1;
+        for (int j = 0; j <= columns; j++) {
+            best = Math.min(best, previousRow[j]);
+        }
+        return best;
+    }
+
+    private static void forEachWord(Task task, Consumer<String> action) {
+        tokenize(task.getTitle(), action);
+        tokenize(task.getDescription(), action);
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        tokenize(text, words::add);
+        return words;
+    }
+
+    private static void tokenize(String text, Consumer<String> action) {
+        if (text == null) {
+            return;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                action.accept(lower.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package models;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import utils.FileHandler;
+
+/**
+ * TextTaskCodec - The original pipe-delimited format, one Task.toFileString() per line.
+ */
+public class TextTaskCodec implements TaskCodec {
+    // Snapshots at least this large are parsed in parallel chunks
+    private static final long PARALLEL_LOAD_BYTES = 8L << 20;
+
+    @Override
+    public String getFileExtension() {
+        return "txt";
+    }
+
+    @Override
+    public int read(FileHandler fileHandler, String filename, Consumer<Task> sink) throws IOException {
+        if (fileHandler.fileSize(filename) >= PARALLEL_LOAD_BYTES) {
+            List<Task> parsed = fileHandler.parseLinesParallel(filename, Task::fromFileString);
+            parsed.forEach(sink);
+            return parsed.parallelStream()
+                    .mapToInt(Task::getId)
+                    .max()
+                    .orElse(0);
+        }
+
+        int[] maxId = {0};
+        // Streamed line by line, so only the parsed tasks are ever held in memory
+        fileHandler.forEachLine(filename, line -> {
+            Task task = Task.fromFileString(line);
+            if (task != null) {
+                sink.accept(task);
+                maxId[0] = Math.max(maxId[0], task.getId());
+            }
+        });
+        return maxId[0];
+    }
+
+    @Override
+    public void write(FileHandler fileHandler, String filename, Collection<Task> tasks) throws IOException {
+        // Encoded one task at a time instead of building every line up front
+        fileHandler.writeFile(filename, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (Task task : tasks) {
+                writer.write(task.toFileString());
+                writer.write(System.lineSeparator());
+            }
+            writer.flush();
+        });
+    }
+
+    @Override
+    public String encodeRecord(Task task) {
+        return task.toFileString();
+    }
+
+    @Override
+    public Task decodeRecord(String record) {
+        return Task.fromFileString(record);
+    }
+}
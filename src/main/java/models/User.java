@@ -1,7 +1,12 @@
 package models;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 
+import utils.JsonWriter;
+
 public abstract class User {
     protected String email;
     protected String firstName;
@@ -49,7 +54,20 @@ public abstract class User {
 
     // --- ABSTRACT METHODS (MUST BE IMPLEMENTED BY SUBCLASSES) ---
     /** Must be implemented by subclasses for JSON serialization. */
-    public abstract String toJson();
+    public abstract void writeJson(JsonWriter json) throws IOException;
+
+    /**
+     * Converts the user to a JSON object string.
+     */
+    public String toJson() {
+        StringWriter json = new StringWriter(256);
+        try {
+            writeJson(new JsonWriter(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter never throws
+        }
+        return json.toString();
+    }
 
     /** Must be implemented by subclasses for file storage. */
     public abstract String toFileString();
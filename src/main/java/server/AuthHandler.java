@@ -0,0 +1,96 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Map;
+
+import auth.AuthManager;
+import models.Student;
+
+/**
+ * AuthHandler - Registration, login and logout.
+ *
+ *   POST /api/register  {firstName, lastName, email, studentId, major, password}
+ *   POST /api/login     {email, password}  ->  {token, student}
+ *   POST /api/logout    (Authorization: Bearer token)
+ */
+class AuthHandler extends JsonHandler {
+
+    AuthHandler(AuthManager authManager) {
+        super(authManager);
+    }
+
+    @Override
+    protected void serve(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            throw methodNotAllowed(exchange, "POST");
+        }
+        switch (exchange.getRequestURI().getPath()) {
+            case "/api/register" -> register(exchange);
+            case "/api/login" -> login(exchange);
+            case "/api/logout" -> logout(exchange);
+            default -> throw new ApiException(404, "Not found");
+        }
+    }
+
+    private void register(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readJson(exchange);
+        String email = required(body, "email");
+        String password = required(body, "password");
+        if (!AuthManager.isValidEmail(email)) {
+            throw new ApiException(400, "Invalid email address");
+        }
+        if (!AuthManager.isValidPassword(password)) {
+            throw new ApiException(400, "Password must be at least 6 characters");
+        }
+        String firstName = validField(required(body, "firstName"), "firstName");
+        String lastName = validField(required(body, "lastName"), "lastName");
+        String studentId = validField(required(body, "studentId"), "studentId");
+        String major = validField(body.getOrDefault("major", ""), "major");
+        boolean registered = authManager.register(firstName, lastName, email, studentId, major, password);
+        if (!registered) {
+            throw new ApiException(409, "Email already registered");
+        }
+        sendNoContent(exchange);
+    }
+
+    private static String validField(String value, String name) {
+        if (!AuthManager.isValidField(value)) {
+            throw new ApiException(400, "Invalid characters in field: " + name);
+        }
+        return value;
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readJson(exchange);
+        String token = authManager.loginSession(required(body, "email"), required(body, "password"));
+        Student student = token == null ? null : authManager.getSessionStudent(token);
+        if (student == null) {
+            throw new ApiException(401, "Invalid email or password");
+        }
+        sendJson(exchange, 200, json -> {
+            json.beginObject()
+                    .name("token").value(token)
+                    .name("student");
+            student.writeJson(json);
+            json.endObject();
+        });
+    }
+
+    private void logout(HttpExchange exchange) throws IOException {
+        String token = token(exchange);
+        if (token != null) {
+            authManager.logout(token);
+        }
+        sendNoContent(exchange);
+    }
+
+    static String required(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, "Missing field: " + field);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,125 @@
+package server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JsonBody - Parser for the flat JSON objects sent as request bodies.
+ *
+ * Accepts one object whose values are strings, numbers, booleans or null, which
+ * covers every request of the API. Values are returned as their text (strings
+ * unescaped, null as a Java null); nested objects and arrays are rejected.
+ */
+final class JsonBody {
+    private final String text;
+    private int pos;
+
+    private JsonBody(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the text is not a flat JSON object.
+     */
+    static Map<String, String> parse(String text) {
+        return new JsonBody(text).readObject();
+    }
+
+    private Map<String, String> readObject() {
+        Map<String, String> fields = new HashMap<>();
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+        } else {
+            do {
+                String name = readString();
+                expect(':');
+                fields.put(name, readValue());
+            } while (consume(','));
+            expect('}');
+        }
+        if (peek() != 0) {
+            throw error("Unexpected content after the object");
+        }
+        return fields;
+    }
+
+    private String readValue() {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        } else if (c == '{' || c == '[') {
+            throw error("Nested values are not supported");
+        }
+        int start = pos;
+        while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+            pos++;
+        }
+        String literal = text.substring(start, pos);
+        if (literal.isEmpty()) {
+            throw error("Missing value");
+        }
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return value.toString();
+            } else if (c != '\\') {
+                value.append(c);
+            } else if (pos < text.length()) {
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw error("Truncated unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text, pos, pos + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> value.append(escaped); // \" \\ \/
+                }
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    // Returns the next non-whitespace character without consuming it, or 0 at the end
+    private char peek() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    private boolean consume(char c) {
+        if (peek() == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
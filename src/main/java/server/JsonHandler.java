@@ -0,0 +1,163 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import auth.AuthManager;
+import models.Student;
+import utils.JsonWriter;
+
+/**
+ * JsonHandler - Base class for the API handlers.
+ *
+ * Turns the exceptions a handler throws into JSON error responses, reads and
+ * parses request bodies, resolves the bearer token of the request, and streams
+ * JSON responses with chunked encoding through a buffered writer.
+ */
+abstract class JsonHandler implements HttpHandler {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int RESPONSE_BUFFER_SIZE = 16 * 1024;
+    private static final String BEARER = "Bearer ";
+
+    protected final AuthManager authManager;
+
+    JsonHandler(AuthManager authManager) {
+        this.authManager = authManager;
+    }
+
+    /**
+     * Writes the body of a JSON response.
+     */
+    @FunctionalInterface
+    interface JsonBodyWriter {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Writes the body of a response in another format, e.g. CSV.
+     */
+    @FunctionalInterface
+    interface TextBodyWriter {
+        void write(Writer out) throws IOException;
+    }
+
+    /**
+     * Signals an error response with the given status and message.
+     */
+    static class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    protected abstract void serve(HttpExchange exchange) throws IOException;
+
+    @Override
+    public final void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                serve(exchange);
+            } catch (ApiException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Error handling " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI() + ": " + e);
+                sendError(exchange, 500, "Internal server error");
+            }
+        }
+    }
+
+    // --- Requests ---
+
+    /**
+     * Reads the request body as a flat JSON object.
+     * @throws ApiException If the body is too large or not a JSON object.
+     */
+    protected static Map<String, String> readJson(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new ApiException(413, "Request body too large");
+        }
+        try {
+            return JsonBody.parse(new String(body, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Invalid JSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the student whose session token the request carries.
+     * @throws ApiException If the token is missing, unknown or expired.
+     */
+    protected Student authenticate(HttpExchange exchange) {
+        Student student = authManager.getSessionStudent(token(exchange));
+        if (student == null) {
+            throw new ApiException(401, "Missing or expired session token");
+        }
+        return student;
+    }
+
+    protected static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        return header.substring(BEARER.length()).trim();
+    }
+
+    protected static ApiException methodNotAllowed(HttpExchange exchange, String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        return new ApiException(405, "Method not allowed");
+    }
+
+    // --- Responses ---
+
+    /**
+     * Streams a JSON response; nothing is buffered beyond the writer's buffer.
+     */
+    protected static void sendJson(HttpExchange exchange, int status, JsonBodyWriter body) throws IOException {
+        sendText(exchange, status, "application/json", out -> {
+            JsonWriter json = new JsonWriter(out);
+            body.write(json);
+            json.flush();
+        });
+    }
+
+    /**
+     * Streams a UTF-8 text response of the given media type, like sendJson.
+     */
+    protected static void sendText(HttpExchange exchange, int status, String contentType, TextBodyWriter body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0); // 0 = chunked, length unknown
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), RESPONSE_BUFFER_SIZE);
+        body.write(out);
+        out.flush();
+    }
+
+    protected static void sendNoContent(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1); // -1 = no body
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return; // Failed mid-stream: the status is already out, closing the exchange cuts the body
+        }
+        sendJson(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+}
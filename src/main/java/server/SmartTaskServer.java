@@ -0,0 +1,80 @@
+package server;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import auth.AuthManager;
+import models.TaskManager;
+
+/**
+ * SmartTaskServer - Headless HTTP/JSON API over AuthManager and TaskManager.
+ *
+ * Built on the JDK's com.sun.net.httpserver; every request runs on its own virtual
+ * thread, so blocking on a journal append or a password hash never ties up a
+ * platform thread. Clients log in through /api/login and send the returned token
+ * as "Authorization: Bearer <token>" on every other call. See AuthHandler and
+ * TaskHandler for the endpoints.
+ *
+ * Usage: java server.SmartTaskServer [port]   (default -Dsmarttask.port or 8080)
+ */
+public class SmartTaskServer {
+    private static final int DEFAULT_PORT = 8080;
+    // Pending connections the OS may queue before accept, sized for load tests
+    private static final int BACKLOG = 1024;
+    private static final int STOP_DELAY_SECONDS = 2;
+
+    private final AuthManager authManager;
+    private final TaskManager taskManager;
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    /**
+     * @param port The port to listen on, or 0 for any free port.
+     */
+    public SmartTaskServer(AuthManager authManager, TaskManager taskManager, int port) throws IOException {
+        this.authManager = authManager;
+        this.taskManager = taskManager;
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        AuthHandler authHandler = new AuthHandler(authManager);
+        TaskHandler taskHandler = new TaskHandler(authManager, taskManager);
+        httpServer.createContext("/api/register", authHandler);
+        httpServer.createContext("/api/login", authHandler);
+        httpServer.createContext("/api/logout", authHandler);
+        httpServer.createContext("/api/tasks", taskHandler);
+        httpServer.createContext("/api/stats", taskHandler);
+        httpServer.setExecutor(executor);
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Stops accepting requests, lets running ones finish for a moment, then flushes
+     * pending logins and task changes.
+     */
+    public void stop() {
+        httpServer.stop(STOP_DELAY_SECONDS);
+        executor.close();
+        authManager.close();
+        taskManager.close();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("smarttask.port", DEFAULT_PORT);
+        SmartTaskServer server = new SmartTaskServer(new AuthManager(), new TaskManager(), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "server-shutdown"));
+        server.start();
+        System.out.println("SmartTask API listening on port " + server.getPort());
+    }
+}
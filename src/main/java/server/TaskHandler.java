@@ -0,0 +1,282 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import auth.AuthManager;
+import models.Student;
+import models.Task;
+import models.TaskIndex;
+import models.TaskManager;
+import models.TaskTransfer;
+import utils.DateTimeParser;
+
+/**
+ * TaskHandler - Task CRUD, listing, stats and import/export for the logged-in student.
+ *
+ *   GET    /api/tasks?category=Lab&priority=High   tasks sorted by due date
+ *   GET    /api/tasks?q=lab+report                  same, limited to a title/description search
+ *   GET    /api/tasks?view=overdue                  overdue tasks; also view=today, view=next&limit=N
+ *   POST   /api/tasks                               {title, description, category, priority, dueDate}
+ *   GET    /api/tasks/{id}
+ *   PUT    /api/tasks/{id}                          same fields; missing ones keep their value
+ *   DELETE /api/tasks/{id}
+ *   POST   /api/tasks/{id}/complete
+ *   GET    /api/tasks/export?format=csv|json        all tasks as a CSV or JSON download
+ *   POST   /api/tasks/import?format=csv|json        adds the tasks in the body, streamed
+ *   GET    /api/stats
+ *
+ * Every request needs a session token, and a student only ever sees their own
+ * tasks: another student's task id answers 404, like a missing one.
+ */
+class TaskHandler extends JsonHandler {
+    private static final String TASKS_PATH = "/api/tasks";
+    private static final String STATS_PATH = "/api/stats";
+    private static final String EXPORT_PATH = TASKS_PATH + "/export";
+    private static final String IMPORT_PATH = TASKS_PATH + "/import";
+    private static final int DEFAULT_NEXT_LIMIT = 10;
+
+    private final TaskManager taskManager;
+
+    TaskHandler(AuthManager authManager, TaskManager taskManager) {
+        super(authManager);
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void serve(HttpExchange exchange) throws IOException {
+        Student student = authenticate(exchange);
+        // Pinned for the whole request, so ownTask() finds their tasks by id and they stay loaded
+        TaskManager.StudentPin pin = taskManager.pinStudent(student.getEmail());
+        try {
+            route(exchange, student);
+        } finally {
+            pin.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, Student student) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+
+        if (path.equals(STATS_PATH)) {
+            requireMethod(exchange, "GET");
+            stats(exchange, student);
+        } else if (path.equals(TASKS_PATH) || path.equals(TASKS_PATH + "/")) {
+            switch (method) {
+                case "GET" -> list(exchange, student);
+                case "POST" -> create(exchange, student);
+                default -> throw methodNotAllowed(exchange, "GET, POST");
+            }
+        } else if (path.equals(EXPORT_PATH)) {
+            requireMethod(exchange, "GET");
+            export(exchange, student);
+        } else if (path.equals(IMPORT_PATH)) {
+            requireMethod(exchange, "POST");
+            importTasks(exchange, student);
+        } else if (path.startsWith(TASKS_PATH + "/")) {
+            String[] segments = path.substring(TASKS_PATH.length() + 1).split("/");
+            Task task = ownTask(student, segments[0]);
+            if (segments.length == 1) {
+                switch (method) {
+                    case "GET" -> sendTask(exchange, 200, task);
+                    case "PUT" -> update(exchange, task);
+                    case "DELETE" -> delete(exchange, task);
+                    default -> throw methodNotAllowed(exchange, "GET, PUT, DELETE");
+                }
+            } else if (segments.length == 2 && segments[1].equals("complete")) {
+                requireMethod(exchange, "POST");
+                complete(exchange, task);
+            } else {
+                throw new ApiException(404, "Not found");
+            }
+        } else {
+            throw new ApiException(404, "Not found");
+        }
+    }
+
+    private void list(HttpExchange exchange, Student student) throws IOException {
+        Map<String, String> query = queryParameters(exchange);
+        String view = query.get("view");
+        List<Task> tasks;
+        if (view == null) {
+            tasks = taskManager.searchTasks(student.getEmail(), query.get("q"),
+                    query.getOrDefault("category", TaskManager.CATEGORIES[0]),
+                    query.getOrDefault("priority", TaskManager.PRIORITY_FILTERS[0]));
+        } else {
+            tasks = switch (view) {
+                case "overdue" -> taskManager.getOverdueTasks(student.getEmail());
+                case "today" -> taskManager.getDueTodayTasks(student.getEmail());
+                case "next" -> taskManager.getNextDueTasks(student.getEmail(), limit(query.get("limit")));
+                default -> throw new ApiException(400, "Unknown view: " + view);
+            };
+        }
+        // Each task is encoded straight into the response buffer as the array is written
+        sendJson(exchange, 200, json -> {
+            json.beginArray();
+            for (Task task : tasks) {
+                task.writeJson(json);
+            }
+            json.endArray();
+        });
+    }
+
+    private void create(HttpExchange exchange, Student student) throws IOException {
+        Map<String, String> body = readJson(exchange);
+        Task task = taskManager.addTask(
+                AuthHandler.required(body, "title"),
+                body.getOrDefault("description", ""),
+                category(body.getOrDefault("category", TaskManager.CATEGORIES[4])),
+                Task.Priority.fromString(body.get("priority")),
+                dueDate(AuthHandler.required(body, "dueDate")),
+                student.getEmail());
+        sendTask(exchange, 201, task);
+    }
+
+    private void update(HttpExchange exchange, Task task) throws IOException {
+        Map<String, String> body = readJson(exchange);
+        String priority = body.get("priority");
+        String due = body.get("dueDate");
+        boolean updated = taskManager.updateTask(task.getId(),
+                body.getOrDefault("title", task.getTitle()),
+                body.getOrDefault("description", task.getDescription()),
+                body.containsKey("category") ? category(body.get("category")) : task.getCategory(),
+                priority != null ? Task.Priority.fromString(priority) : task.getPriority(),
+                due != null ? dueDate(due) : task.getDueDate());
+        if (!updated) {
+            throw new ApiException(404, "Task not found");
+        }
+        sendTask(exchange, 200, task);
+    }
+
+    private void delete(HttpExchange exchange, Task task) throws IOException {
+        if (!taskManager.deleteTask(task.getId())) {
+            throw new ApiException(404, "Task not found");
+        }
+        sendNoContent(exchange);
+    }
+
+    private void complete(HttpExchange exchange, Task task) throws IOException {
+        // Completing an already completed task is not an error; the response shows its state
+        taskManager.completeTask(task.getId());
+        sendTask(exchange, 200, task);
+    }
+
+    private void export(HttpExchange exchange, Student student) throws IOException {
+        TaskTransfer.Format format = format(exchange);
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"tasks." + format.getExtension() + "\"");
+        sendText(exchange, 200, format.getContentType(),
+                out -> TaskTransfer.exportTasks(taskManager, student.getEmail(), format, out));
+    }
+
+    private void importTasks(HttpExchange exchange, Student student) throws IOException {
+        TaskTransfer.Format format = format(exchange);
+        // Read straight from the request, unlike readJson(), so the body size is not capped
+        Reader body = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        TaskTransfer.ImportResult result;
+        try {
+            result = TaskTransfer.importTasks(taskManager, student.getEmail(), format, body);
+        } catch (IOException e) {
+            throw new ApiException(400, "Invalid " + format.getExtension() + ": " + e.getMessage());
+        }
+        sendJson(exchange, 200, json -> json.beginObject()
+                .name("imported").value(result.getImported())
+                .name("skipped").value(result.getSkipped())
+                .endObject());
+    }
+
+    private void stats(HttpExchange exchange, Student student) throws IOException {
+        TaskManager.TaskStats stats = taskManager.getTaskStats(student.getEmail());
+        sendJson(exchange, 200, json -> json.beginObject()
+                .name("total").value(stats.getTotal())
+                .name("completed").value(stats.getCompleted())
+                .name("pending").value(stats.getPending())
+                .name("overdue").value(stats.getOverdue())
+                .name("dueToday").value(stats.getDueToday())
+                .endObject());
+    }
+
+    // --- Helpers ---
+
+    private Task ownTask(Student student, String idText) {
+        Task task;
+        try {
+            task = taskManager.getTask(Integer.parseInt(idText));
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "Not found");
+        }
+        if (task == null || !TaskIndex.normalizeEmail(task.getStudentEmail())
+                .equals(TaskIndex.normalizeEmail(student.getEmail()))) {
+            throw new ApiException(404, "Task not found");
+        }
+        return task;
+    }
+
+    private static LocalDateTime dueDate(String text) {
+        try {
+            return DateTimeParser.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Invalid dueDate, expected yyyy-MM-ddTHH:mm[:ss]: " + text);
+        }
+    }
+
+    private static String category(String text) {
+        if (!TaskManager.isValidCategory(text)) {
+            throw new ApiException(400, "Unknown category: " + text);
+        }
+        return text;
+    }
+
+    private static TaskTransfer.Format format(HttpExchange exchange) {
+        return TaskTransfer.Format.fromString(queryParameters(exchange).getOrDefault("format", "json"));
+    }
+
+    private static int limit(String text) {
+        if (text == null) {
+            return DEFAULT_NEXT_LIMIT;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(text));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid limit: " + text);
+        }
+    }
+
+    private static void sendTask(HttpExchange exchange, int status, Task task) throws IOException {
+        sendJson(exchange, status, task::writeJson);
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw methodNotAllowed(exchange, method);
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+}
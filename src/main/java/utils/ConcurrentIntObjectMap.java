@@ -0,0 +1,125 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * ConcurrentIntObjectMap - Thread-safe map from primitive int keys to objects.
+ *
+ * The keys are spread over a fixed number of stripes, each an IntObjectMap guarded
+ * by its own monitor, so threads working on different keys rarely wait for each
+ * other. The size is kept in a LongAdder for the same reason. Iteration locks one
+ * stripe at a time and is therefore weakly consistent.
+ */
+public class ConcurrentIntObjectMap<V> {
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final IntObjectMap<V>[] stripes;
+    private final LongAdder size = new LongAdder();
+
+    public ConcurrentIntObjectMap() {
+        this(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentIntObjectMap(int expectedSize) {
+        stripes = (IntObjectMap<V>[]) new IntObjectMap<?>[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new IntObjectMap<>(expectedSize / STRIPES);
+        }
+    }
+
+    // Uses the high bits, since each stripe hashes on the low bits
+    private IntObjectMap<V> stripeOf(int key) {
+        return stripes[(key * 0x9E3779B9) >>> (32 - STRIPE_BITS)];
+    }
+
+    public V get(int key) {
+        IntObjectMap<V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    /**
+     * Associates a non-null value with the key.
+     * @return The previous value, or null if there was none.
+     */
+    public V put(int key, V value) {
+        IntObjectMap<V> stripe = stripeOf(key);
+        V previous;
+        synchronized (stripe) {
+            previous = stripe.put(key, value);
+        }
+        if (previous == null) {
+            size.increment();
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the mapping for a key.
+     * @return The removed value, or null if the key was absent.
+     */
+    public V remove(int key) {
+        IntObjectMap<V> stripe = stripeOf(key);
+        V removed;
+        synchronized (stripe) {
+            removed = stripe.remove(key);
+        }
+        if (removed != null) {
+            size.decrement();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the mapping for a key only if it maps to the given value (compared by identity).
+     * @return true if the mapping was removed.
+     */
+    public boolean remove(int key, V value) {
+        IntObjectMap<V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            if (stripe.get(key) != value) {
+                return false;
+            }
+            stripe.remove(key);
+        }
+        size.decrement();
+        return true;
+    }
+
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Runs the action on every value. Each stripe is copied under its lock and the
+     * action runs outside it, so the action may take other locks.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        for (IntObjectMap<V> stripe : stripes) {
+            List<V> values;
+            synchronized (stripe) {
+                values = stripe.values();
+            }
+            values.forEach(action);
+        }
+    }
+
+    /**
+     * Returns a snapshot of all values, in no particular order.
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size());
+        for (IntObjectMap<V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEachValue(result::add);
+            }
+        }
+        return result;
+    }
+}
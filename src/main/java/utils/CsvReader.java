@@ -0,0 +1,122 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CsvReader - Streaming reader for RFC 4180 comma-separated records.
+ *
+ * Reads one record at a time from the underlying Reader, so a file of any size is
+ * parsed in constant memory. Quoted fields may contain commas, doubled quotes and
+ * line breaks; records end with LF or CRLF. Fields and records are capped in size,
+ * so an unterminated quote fails fast instead of buffering the rest of the input.
+ */
+public class CsvReader {
+    private static final int MAX_FIELD_LENGTH = 1 << 16;
+    private static final int MAX_FIELDS = 256;
+
+    private final Reader in;
+    // One character of lookahead; -2 when nothing is buffered
+    private int peeked = -2;
+    private int line = 1;
+
+    /**
+     * @param in The input, which should be buffered; it is read sequentially and not closed.
+     */
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next record.
+     * @return The fields of the record, or null at the end of the input.
+     * @throws IOException If reading fails or the input is not valid CSV.
+     */
+    public List<String> readRecord() throws IOException {
+        if (peek() < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        while (true) {
+            readField(field);
+            if (fields.size() == MAX_FIELDS) {
+                throw error("More than " + MAX_FIELDS + " fields in a record");
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            int c = read();
+            if (c == ',') {
+                continue;
+            }
+            if (c == '\r' && peek() == '\n') {
+                read();
+            }
+            line++;
+            return fields; // c is a line break or the end of the input
+        }
+    }
+
+    /**
+     * Returns the line the next record starts on, for error messages.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    // Reads up to, but not including, the next separator, line break or end of input
+    private void readField(StringBuilder field) throws IOException {
+        if (peek() != '"') {
+            int c;
+            while ((c = peek()) >= 0 && c != ',' && c != '\n' && c != '\r') {
+                append(field, (char) read());
+            }
+            return;
+        }
+        read();
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw error("Unterminated quoted field");
+            } else if (c == '"') {
+                if (peek() != '"') {
+                    break;
+                }
+                read(); // A doubled quote stands for one quote
+            } else if (c == '\n') {
+                line++;
+            }
+            append(field, (char) c);
+        }
+        int next = peek();
+        if (next >= 0 && next != ',' && next != '\n' && next != '\r') {
+            throw error("Unexpected character after a quoted field");
+        }
+    }
+
+    private void append(StringBuilder field, char c) throws IOException {
+        if (field.length() == MAX_FIELD_LENGTH) {
+            throw error("Field longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+        field.append(c);
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " on line " + line);
+    }
+}
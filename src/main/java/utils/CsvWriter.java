@@ -0,0 +1,55 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CsvWriter - Streaming encoder for RFC 4180 comma-separated records.
+ *
+ * Fields containing a comma, a quote or a line break are quoted, with quotes
+ * doubled; all others are written as they are. Records end with CRLF as the RFC
+ * asks, which CsvReader and spreadsheet programs both accept.
+ */
+public class CsvWriter {
+    private final Writer out;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one record. A null field is written as an empty one.
+     */
+    public CsvWriter writeRecord(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(fields[i]);
+        }
+        out.write("\r\n");
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        out.write(field.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,75 @@
+package utils;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * DateTimeParser - Fast parser for the ISO format produced by LocalDateTime.toString().
+ *
+ * Handles uuuu-MM-ddTHH:mm with optional :ss and an optional 1-9 digit fraction
+ * by reading the digits in place, without a formatter or intermediate strings.
+ * Anything else (e.g. years beyond 9999) falls back to LocalDateTime.parse.
+ */
+public final class DateTimeParser {
+    private static final int[] NANO_SCALE = {
+            1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+    };
+
+    private DateTimeParser() {}
+
+    public static LocalDateTime parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses the characters in [start, end).
+     * @throws java.time.format.DateTimeParseException If the text is not a valid date-time.
+     */
+    public static LocalDateTime parse(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length >= 16
+                && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-'
+                && text.charAt(start + 10) == 'T' && text.charAt(start + 13) == ':') {
+            int year = digits(text, start, 4);
+            int month = digits(text, start + 5, 2);
+            int day = digits(text, start + 8, 2);
+            int hour = digits(text, start + 11, 2);
+            int minute = digits(text, start + 14, 2);
+            int second = 0;
+            int nano = 0;
+            boolean valid = (year | month | day | hour | minute) >= 0;
+
+            if (length > 16) {
+                valid &= length >= 19 && text.charAt(start + 16) == ':';
+                second = valid ? digits(text, start + 17, 2) : -1;
+                if (length > 19) {
+                    int fractionDigits = length - 20;
+                    valid &= text.charAt(start + 19) == '.' && fractionDigits >= 1 && fractionDigits <= 9;
+                    nano = valid ? digits(text, start + 20, fractionDigits) * NANO_SCALE[fractionDigits] : -1;
+                }
+            }
+
+            if (valid && (second | nano) >= 0) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+                } catch (DateTimeException e) {
+                    // Out-of-range field: let the full parser report it
+                }
+            }
+        }
+        return LocalDateTime.parse(text.subSequence(start, end));
+    }
+
+    // Returns -1 if any character is not an ASCII digit
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = text.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
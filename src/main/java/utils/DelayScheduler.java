@@ -0,0 +1,35 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DelayScheduler - Runs actions once after a delay, with cheap cancellation.
+ *
+ * Implementations run the actions on their own timer thread, so actions must be
+ * quick and hand longer work to another thread.
+ */
+public interface DelayScheduler {
+
+    /**
+     * A scheduled action.
+     */
+    @FunctionalInterface
+    interface Timeout {
+        /**
+         * Cancels the action if it has not run yet.
+         * @return true if this call cancelled it.
+         */
+        boolean cancel();
+    }
+
+    /**
+     * Schedules an action; a delay of zero or less runs it as soon as possible.
+     * @throws IllegalStateException If the scheduler is stopped.
+     */
+    Timeout schedule(Runnable action, long delay, TimeUnit unit);
+
+    /**
+     * Stops the timer thread. Actions that have not run yet are dropped.
+     */
+    void stop();
+}
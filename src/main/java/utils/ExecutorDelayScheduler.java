@@ -0,0 +1,48 @@
+package utils;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExecutorDelayScheduler - DelayScheduler backed by a ScheduledThreadPoolExecutor.
+ *
+ * Exact to the millisecond, but every schedule and cancel costs O(log n) in the
+ * executor's heap. Use TimingWheel for large numbers of timeouts.
+ */
+public class ExecutorDelayScheduler implements DelayScheduler {
+    private final ScheduledThreadPoolExecutor executor;
+
+    public ExecutorDelayScheduler(String threadName) {
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true); // Cancelled actions leave the heap right away
+    }
+
+    @Override
+    public Timeout schedule(Runnable action, long delay, TimeUnit unit) {
+        ScheduledFuture<?> future;
+        try {
+            future = executor.schedule(() -> {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    // The future would swallow it, since nobody reads the result
+                    System.err.println("Error: Scheduled action failed. Error: " + e);
+                }
+            }, delay, unit);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Scheduler is stopped", e);
+        }
+        return () -> future.cancel(false);
+    }
+
+    @Override
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
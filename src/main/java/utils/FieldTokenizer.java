@@ -0,0 +1,101 @@
+package utils;
+
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+/**
+ * FieldTokenizer - Single-pass reader over the fields of a delimited record.
+ *
+ * Walks the line with an index instead of splitting it, so no regex runs and no
+ * String[] is allocated. Numeric, boolean and date fields are decoded in place;
+ * only fields read with next() become Strings. Empty fields, including trailing
+ * ones, are preserved.
+ */
+public class FieldTokenizer {
+    private final String line;
+    private final char delimiter;
+    private int pos;
+    private int fieldStart;
+    private int fieldEnd;
+
+    public FieldTokenizer(String line, char delimiter) {
+        this.line = line;
+        this.delimiter = delimiter;
+        this.pos = 0;
+    }
+
+    /**
+     * Counts the fields of a record. Meant for error paths, since it scans the whole line.
+     */
+    public static int countFields(String line, char delimiter) {
+        int count = 1;
+        for (int i = line.indexOf(delimiter); i >= 0; i = line.indexOf(delimiter, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    public boolean hasNext() {
+        return pos <= line.length();
+    }
+
+    // Moves [fieldStart, fieldEnd) onto the next field
+    private void advance() {
+        if (pos > line.length()) {
+            throw new NoSuchElementException("Record has fewer fields than expected: " + line);
+        }
+        fieldStart = pos;
+        int end = line.indexOf(delimiter, pos);
+        fieldEnd = end < 0 ? line.length() : end;
+        pos = fieldEnd + 1;
+    }
+
+    public String next() {
+        advance();
+        return line.substring(fieldStart, fieldEnd);
+    }
+
+    public void skip() {
+        advance();
+    }
+
+    /**
+     * Reads the next field as a decimal int.
+     * @throws NumberFormatException If the field is not a valid int.
+     */
+    public int nextInt() {
+        advance();
+        return Integer.parseInt(line, fieldStart, fieldEnd, 10);
+    }
+
+    /**
+     * Reads the next field as a boolean, with Boolean.parseBoolean semantics.
+     */
+    public boolean nextBoolean() {
+        advance();
+        return fieldEnd - fieldStart == 4 && line.regionMatches(true, fieldStart, "true", 0, 4);
+    }
+
+    /**
+     * Reads the next field as a LocalDateTime.toString() timestamp.
+     * @throws java.time.format.DateTimeParseException If the field is not a valid date-time.
+     */
+    public LocalDateTime nextDateTime() {
+        advance();
+        return DateTimeParser.parse(line, fieldStart, fieldEnd);
+    }
+
+    /**
+     * Checks, without allocating, whether the next field equals the given text.
+     * The field is consumed only if it matches.
+     */
+    public boolean nextEquals(String text) {
+        int end = line.indexOf(delimiter, pos);
+        int length = (end < 0 ? line.length() : end) - pos;
+        if (pos <= line.length() && length == text.length() && line.startsWith(text, pos)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+}
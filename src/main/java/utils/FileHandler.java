@@ -1,26 +1,109 @@
 package utils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * FileHandler - Utility class for reading and writing data to files
  * in the 'data' directory.
+ *
+ * Whole-file writes go to a temporary file first and are renamed over the
+ * old file, so a crash mid-write never leaves a truncated file behind.
+ * When data is forced to disk is governed by a SyncPolicy, configurable with
+ * -Dsmarttask.fsync=always|batched|never.
  */
 public class FileHandler {
     private static final String DATA_DIR = "data";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    /** Under BATCHED, the longest an append stays unforced, given a caller of syncAppends(). */
+    public static final long BATCH_SYNC_INTERVAL_MILLIS = 1000;
+    private static final long BATCH_SYNC_INTERVAL_NANOS = BATCH_SYNC_INTERVAL_MILLIS * 1_000_000L;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    public enum SyncPolicy {
+        /** Force every rewrite and every append to disk before returning. */
+        ALWAYS,
+        /**
+         * Force every rewrite (needed for a safe rename), but appends at most once per second;
+         * appends not forced by a later one are forced by syncAppends().
+         */
+        BATCHED,
+        /** Never force; leave flushing to the operating system. */
+        NEVER;
+
+        public static SyncPolicy fromString(String text) {
+            for (SyncPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(text)) {
+                    return policy;
+                }
+            }
+            return BATCHED; // Default if unset or invalid
+        }
+    }
+
+    /**
+     * Writes the content of a file to a buffered stream.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
     private final Path dataDirPath;
+    private final SyncPolicy syncPolicy;
+    private long lastAppendSync = System.nanoTime();
+    // Files appended to under BATCHED since they were last forced
+    private final Set<Path> unsyncedAppends = ConcurrentHashMap.newKeySet();
 
     public FileHandler() {
-        this.dataDirPath = Paths.get(DATA_DIR);
+        this(SyncPolicy.fromString(System.getProperty("smarttask.fsync")));
+    }
+
+    public FileHandler(SyncPolicy syncPolicy) {
+        this(Paths.get(DATA_DIR), syncPolicy);
+    }
+
+    /**
+     * @param dataDirPath The directory holding the data files, e.g. for benchmarks on a scratch directory.
+     * @param syncPolicy When to force writes to disk.
+     */
+    public FileHandler(Path dataDirPath, SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+        this.dataDirPath = dataDirPath;
         // Ensure data directory exists on initialization
         if (!Files.exists(dataDirPath)) {
             try {
                 Files.createDirectories(dataDirPath);
-                System.out.println("Created data directory: " + DATA_DIR);
+                System.out.println("Created data directory: " + dataDirPath);
             } catch (IOException e) {
                 System.err.println("Could not create data directory: " + e.getMessage());
             }
@@ -42,15 +125,350 @@ public class FileHandler {
         return Files.readAllLines(filePath);
     }
 
+    /**
+     * Streams the lines of a file in the data directory without loading it all into memory.
+     * The stream holds the file open and must be closed, e.g. with try-with-resources.
+     * @param filename The name of the file.
+     * @return A lazily read stream of lines, empty if the file doesn't exist yet.
+     * @throws IOException If an I/O error occurs opening the file.
+     */
+    public Stream<String> streamLines(String filename) throws IOException {
+        BufferedReader reader = openReader(filename);
+        if (reader == null) {
+            return Stream.empty();
+        }
+        return reader.lines().onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reads a file in the data directory line by line, handing each line to the consumer.
+     * Only one line is held in memory at a time.
+     * @param filename The name of the file.
+     * @param consumer Receives every line in order. Nothing happens if the file doesn't exist yet.
+     * @throws IOException If an I/O error occurs reading from the file.
+     */
+    public void forEachLine(String filename, Consumer<String> consumer) throws IOException {
+        BufferedReader reader = openReader(filename);
+        if (reader == null) {
+            return;
+        }
+        try (reader) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumer.accept(line);
+            }
+        }
+    }
+
+    /**
+     * Opens a file in the data directory for buffered binary reading.
+     * @param filename The name of the file.
+     * @return The stream, which the caller must close, or null if the file doesn't exist yet.
+     * @throws IOException If an I/O error occurs opening the file.
+     */
+    public InputStream openInputStream(String filename) throws IOException {
+        Path filePath = dataDirPath.resolve(filename);
+        if (!Files.exists(filePath)) {
+            return null;
+        }
+        return new BufferedInputStream(Files.newInputStream(filePath), READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Checks whether a file exists in the data directory.
+     */
+    public boolean exists(String filename) {
+        return Files.exists(dataDirPath.resolve(filename));
+    }
+
+    /**
+     * Parses the lines of a file in the data directory in parallel on the common fork-join pool.
+     * Worth it for large files only; small files are faster to read with forEachLine.
+     * @param filename The name of the file.
+     * @param parser Converts one line to a record, or null to drop it; must be thread-safe.
+     * @return The parsed records in file order, empty if the file doesn't exist yet.
+     * @throws IOException If an I/O error occurs reading from the file.
+     */
+    public <T> List<T> parseLinesParallel(String filename, Function<String, T> parser) throws IOException {
+        Path filePath = dataDirPath.resolve(filename);
+        if (!Files.exists(filePath)) {
+            return List.of();
+        }
+        return ParallelLineParser.parse(filePath, parser, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Lists the files under a directory in the data directory, at any depth.
+     * @param directory The name of the directory, e.g. "shards".
+     * @return The names of the files relative to the data directory, with '/'
+     *         separators, e.g. "shards/3f/3f0a.txt"; empty if the directory doesn't exist.
+     * @throws IOException If an I/O error occurs reading the directory.
+     */
+    public List<String> listFiles(String directory) throws IOException {
+        Path dirPath = dataDirPath.resolve(directory);
+        if (!Files.isDirectory(dirPath)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(dirPath)) {
+            return paths.filter(Files::isRegularFile)
+                    .map(path -> dataDirPath.relativize(path).toString().replace(File.separatorChar, '/'))
+                    .toList();
+        }
+    }
+
+    /**
+     * Creates a directory inside the data directory, with any missing parents,
+     * so files can be written under it, e.g. "shards/3f".
+     * @throws IOException If the directory cannot be created.
+     */
+    public void createDirectories(String name) throws IOException {
+        Files.createDirectories(dataDirPath.resolve(name));
+    }
+
+    /**
+     * Returns the size of a file in the data directory in bytes, or 0 if it doesn't exist.
+     */
+    public long fileSize(String filename) throws IOException {
+        Path filePath = dataDirPath.resolve(filename);
+        return Files.exists(filePath) ? Files.size(filePath) : 0;
+    }
+
+    /**
+     * Returns when a file in the data directory was last modified, in epoch
+     * milliseconds, or 0 if it doesn't exist.
+     */
+    public long lastModified(String filename) throws IOException {
+        Path filePath = dataDirPath.resolve(filename);
+        return Files.exists(filePath) ? Files.getLastModifiedTime(filePath).toMillis() : 0;
+    }
+
+    // Returns null if the file doesn't exist. Malformed UTF-8 is reported, as with readAllLines.
+    private BufferedReader openReader(String filename) throws IOException {
+        Path filePath = dataDirPath.resolve(filename);
+        if (!Files.exists(filePath)) {
+            return null;
+        }
+        return new BufferedReader(
+                new InputStreamReader(Files.newInputStream(filePath), StandardCharsets.UTF_8.newDecoder()),
+                READ_BUFFER_SIZE);
+    }
+
     /**
      * Writes a list of strings to a file in the data directory.
-     * Overwrites the file if it exists.
+     * Overwrites the file if it exists, atomically: readers see either the old
+     * or the new content, never a partial file.
      * @param filename The name of the file.
      * @param lines The list of strings to write.
      * @throws IOException If an I/O error occurs writing to the file.
      */
     public void writeFile(String filename, List<String> lines) throws IOException {
+        writeFile(filename, out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                    WRITE_BUFFER_SIZE);
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(LINE_SEPARATOR);
+            }
+            writer.flush();
+        });
+    }
+
+    /**
+     * Writes arbitrary content to a file in the data directory, atomically replacing it.
+     * @param filename The name of the file.
+     * @param content Writes the full file content; the stream must not be closed.
+     * @throws IOException If an I/O error occurs writing to the file.
+     */
+    public void writeFile(String filename, ContentWriter content) throws IOException {
+        Path filePath = dataDirPath.resolve(filename);
+        // A temp file of its own, next to the target: concurrent writes of one file must not share one
+        Path tempPath = Files.createTempFile(filePath.getParent(), filePath.getFileName() + ".", TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+                content.write(out);
+                out.flush(); // Not closed here: that would close the channel before force()
+                IoMetrics.global().recordWrite(channel.position());
+                if (syncPolicy != SyncPolicy.NEVER) {
+                    force(channel);
+                }
+            }
+            try {
+                Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath); // The name is unique, so nothing would ever replace it
+            throw e;
+        }
+        if (syncPolicy != SyncPolicy.NEVER) {
+            forceDirectory(filePath.getParent());
+        }
+    }
+
+    /**
+     * Appends a list of strings to the end of a file in the data directory.
+     * Creates the file if it does not exist yet.
+     * @param filename The name of the file.
+     * @param lines The list of strings to append.
+     * @throws IOException If an I/O error occurs writing to the file.
+     */
+    public void appendFile(String filename, List<String> lines) throws IOException {
+        Path filePath = dataDirPath.resolve(filename);
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append(LINE_SEPARATOR);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            int bytes = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            IoMetrics.global().recordWrite(bytes);
+            if (shouldSyncAppend()) {
+                unsyncedAppends.remove(filePath); // Before forcing, so an append racing the force stays pending
+                force(channel);
+            } else if (syncPolicy == SyncPolicy.BATCHED) {
+                unsyncedAppends.add(filePath);
+            }
+        }
+    }
+
+    /**
+     * Checks whether appends under BATCHED are waiting for syncAppends().
+     */
+    public boolean hasUnsyncedAppends() {
+        return !unsyncedAppends.isEmpty();
+    }
+
+    /**
+     * Forces the files appended to under BATCHED since they were last forced, so the
+     * last appends of a burst reach the disk without waiting for another append.
+     * Files deleted meanwhile, e.g. a journal folded into its snapshot, are skipped.
+     * @throws IOException If forcing a file fails; the others are forced regardless.
+     */
+    public void syncAppends() throws IOException {
+        IOException failure = null;
+        for (Path filePath : unsyncedAppends) {
+            unsyncedAppends.remove(filePath);
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE)) {
+                force(channel);
+            } catch (NoSuchFileException e) {
+                // Deleted since the append
+            } catch (IOException e) {
+                unsyncedAppends.add(filePath); // Retried by the next call
+                failure = failure == null ? e : failure;
+            }
+        }
+        synchronized (this) {
+            lastAppendSync = System.nanoTime();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Cuts a file in the data directory back to the end of its last complete line, e.g.
+     * a journal whose last append was torn by a crash, so the next append starts on a
+     * line of its own instead of being glued to the torn one.
+     * @param filename The name of the file.
+     * @return The number of bytes removed; 0 if the file ends with a line break, is empty or doesn't exist.
+     * @throws IOException If an I/O error occurs reading or truncating the file.
+     */
+    public long truncateIncompleteLine(String filename) throws IOException {
         Path filePath = dataDirPath.resolve(filename);
-        Files.write(filePath, lines);
+        if (!Files.exists(filePath)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = 0; // End of the last complete line
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long chunkEnd = size;
+            search:
+            while (chunkEnd > 0) {
+                int length = (int) Math.min(buffer.capacity(), chunkEnd);
+                long chunkStart = chunkEnd - length;
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, chunkStart + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of file: " + filename);
+                    }
+                }
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        end = chunkStart + i + 1;
+                        break search;
+                    }
+                }
+                chunkEnd = chunkStart;
+            }
+            if (end == size) {
+                return 0;
+            }
+            channel.truncate(end);
+            if (syncPolicy != SyncPolicy.NEVER) {
+                force(channel);
+            }
+            return size - end;
+        }
+    }
+
+    private synchronized boolean shouldSyncAppend() {
+        if (syncPolicy == SyncPolicy.ALWAYS) {
+            return true;
+        }
+        if (syncPolicy == SyncPolicy.BATCHED && System.nanoTime() - lastAppendSync >= BATCH_SYNC_INTERVAL_NANOS) {
+            lastAppendSync = System.nanoTime();
+            return true;
+        }
+        return false;
+    }
+
+    private static void force(FileChannel channel) throws IOException {
+        long start = System.nanoTime();
+        channel.force(false);
+        IoMetrics.global().recordSync(System.nanoTime() - start);
+    }
+
+    /**
+     * Flushes a directory's entries, so a file just renamed into it survives a crash
+     * under its new name. Skipped where directories cannot be opened, e.g. Windows.
+     */
+    private static void forceDirectory(Path dir) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (channel) {
+            long start = System.nanoTime();
+            channel.force(true);
+            IoMetrics.global().recordSync(System.nanoTime() - start);
+        }
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Deletes a file in the data directory if it exists.
+     * @param filename The name of the file.
+     * @throws IOException If an I/O error occurs deleting the file.
+     */
+    public void deleteFile(String filename) throws IOException {
+        Files.deleteIfExists(dataDirPath.resolve(filename));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * IntIntMap - Hash map from primitive int keys to non-negative int values,
+ * such as array indexes.
+ *
+ * Same layout as IntObjectMap, with the values in an int[] as well, so neither
+ * side is boxed. A value of -1 marks a free slot, and is what get() returns for
+ * a missing key. Not thread-safe.
+ */
+public class IntIntMap {
+    /** Returned by get() and remove() when the key is absent. */
+    public static final int MISSING = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    public IntIntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Spread the bits so sequential ids don't cluster in neighbouring slots
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1 - slot; // Not found: encode the free slot where the key would go
+    }
+
+    /**
+     * Returns the value of the key, or MISSING if the key is absent.
+     */
+    public int get(int key) {
+        int slot = slotOf(key);
+        return slot >= 0 ? values[slot] : MISSING;
+    }
+
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Associates a non-negative value with the key.
+     * @return The previous value, or MISSING if there was none.
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("IntIntMap does not accept negative values");
+        }
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        slot = -1 - slot;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return MISSING;
+    }
+
+    /**
+     * Removes the mapping for a key.
+     * @return The removed value, or MISSING if the key was absent.
+     */
+    public int remove(int key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return MISSING;
+        }
+        int removed = values[slot];
+        int mask = keys.length - 1;
+        // Backward-shift deletion: pull later entries of the probe chain into the hole
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (values[next] != MISSING) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = MISSING;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != MISSING) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IoMetrics - Process-wide counters for file writes done through FileHandler.
+ */
+public class IoMetrics {
+    private static final IoMetrics GLOBAL = new IoMetrics();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong syncNanos = new AtomicLong();
+
+    public static IoMetrics global() {
+        return GLOBAL;
+    }
+
+    void recordWrite(long bytes) {
+        writes.incrementAndGet();
+        bytesWritten.addAndGet(bytes);
+    }
+
+    void recordSync(long nanos) {
+        syncs.incrementAndGet();
+        syncNanos.addAndGet(nanos);
+    }
+
+    public long getBytesWritten() { return bytesWritten.get(); }
+    public long getWrites() { return writes.get(); }
+    public long getSyncs() { return syncs.get(); }
+    public long getSyncNanos() { return syncNanos.get(); }
+
+    public void reset() {
+        bytesWritten.set(0);
+        writes.set(0);
+        syncs.set(0);
+        syncNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IoMetrics{writes=%d, bytesWritten=%d, syncs=%d, syncMillis=%.3f}",
+                getWrites(), getBytesWritten(), getSyncs(), getSyncNanos() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,188 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JsonReader - Streaming decoder for a JSON array of flat objects.
+ *
+ * The counterpart of JsonWriter for bulk input: the array is read one element at a
+ * time from the underlying Reader, so only the current object is ever in memory.
+ * Object values may be strings, numbers, booleans or null and are returned as their
+ * text (strings unescaped, null as a Java null); nested objects and arrays are
+ * rejected. Strings are capped in length so malformed input fails fast.
+ */
+public class JsonReader {
+    private static final int MAX_STRING_LENGTH = 1 << 16;
+
+    private final Reader in;
+    // One character of lookahead; -2 when nothing is buffered
+    private int peeked = -2;
+    private long offset;
+    // Set after an element, so the next one must be preceded by a comma
+    private boolean needsComma;
+
+    /**
+     * @param in The input, which should be buffered; it is read sequentially and not closed.
+     */
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    /**
+     * Checks whether the array has another element, consuming the comma before it.
+     */
+    public boolean hasNext() throws IOException {
+        int c = peekToken();
+        if (c == ']') {
+            return false;
+        }
+        if (needsComma) {
+            expect(',');
+            needsComma = false;
+        }
+        return true;
+    }
+
+    /**
+     * Consumes the end of the array, which must be the end of the input.
+     */
+    public void endArray() throws IOException {
+        expect(']');
+        if (peekToken() >= 0) {
+            throw error("Unexpected content after the array");
+        }
+    }
+
+    /**
+     * Reads the next element of the array, which must be a flat object.
+     */
+    public Map<String, String> nextObject() throws IOException {
+        needsComma = true;
+        Map<String, String> fields = new HashMap<>();
+        expect('{');
+        if (consume('}')) {
+            return fields;
+        }
+        do {
+            String name = readString();
+            expect(':');
+            fields.put(name, readValue());
+        } while (consume(','));
+        expect('}');
+        return fields;
+    }
+
+    private String readValue() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            return readString();
+        } else if (c == '{' || c == '[') {
+            throw error("Nested values are not supported");
+        }
+        StringBuilder literal = new StringBuilder();
+        while ((c = peek()) >= 0 && ",}] \t\r\n".indexOf(c) < 0) {
+            append(literal, (char) read());
+        }
+        if (literal.length() == 0) {
+            throw error("Missing value");
+        }
+        String text = literal.toString();
+        return text.equals("null") ? null : text;
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw error("Unterminated string");
+            } else if (c == '"') {
+                return value.toString();
+            } else if (c != '\\') {
+                append(value, (char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case 'n' -> append(value, '\n');
+                case 'r' -> append(value, '\r');
+                case 't' -> append(value, '\t');
+                case 'b' -> append(value, '\b');
+                case 'f' -> append(value, '\f');
+                case 'u' -> append(value, readHexChar());
+                case -1 -> throw error("Unterminated string");
+                default -> append(value, (char) escaped); // \" \\ \/
+            }
+        }
+    }
+
+    private char readHexChar() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+            value = value * 16 + digit;
+        }
+        return (char) value;
+    }
+
+    private void append(StringBuilder value, char c) throws IOException {
+        if (value.length() == MAX_STRING_LENGTH) {
+            throw error("Value longer than " + MAX_STRING_LENGTH + " characters");
+        }
+        value.append(c);
+    }
+
+    private boolean consume(char c) throws IOException {
+        if (peekToken() == c) {
+            read();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws IOException {
+        if (!consume(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    // Skips whitespace and returns the next character without consuming it, or -1 at the end
+    private int peekToken() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && Character.isWhitespace(c)) {
+            read();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            offset++;
+        }
+        peeked = -2;
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + offset);
+    }
+}
@@ -0,0 +1,185 @@
+package utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * ParallelLineParser - Parses the lines of a large file on a fork-join pool.
+ *
+ * The file is cut into byte ranges whose boundaries are moved forward to the
+ * next newline, so every line falls into exactly one range. Each range is read
+ * with a positional read and parsed independently, and the per-range results are
+ * concatenated in file order. Lines are decoded as UTF-8; since '\n' never occurs
+ * inside a multi-byte sequence, splitting on it is safe. A line that is not valid
+ * UTF-8 fails the parse with an IOException naming its byte offset, as the
+ * reader of FileHandler.forEachLine fails on it, instead of being decoded with
+ * replacement characters.
+ */
+public final class ParallelLineParser {
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_BYTES = 16 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelLineParser() {}
+
+    /**
+     * Parses every line of the file, dropping lines the parser maps to null.
+     * @param file The file to read.
+     * @param parser Converts one line (without its terminator) to a record; must be thread-safe.
+     * @param pool The pool to run on.
+     * @return The parsed records, in file order.
+     * @throws IOException If an I/O error occurs reading the file.
+     */
+    public static <T> List<T> parse(Path file, Function<String, T> parser, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = splitPoints(channel, pool.getParallelism());
+            try {
+                return pool.invoke(new ChunkTask<>(channel, bounds, 0, bounds.length - 1, parser));
+            } catch (UncheckedIOException e) {
+                if (e.getCause() instanceof CharacterCodingException) {
+                    throw new IOException("Malformed UTF-8 in " + file + " " + e.getMessage(), e.getCause());
+                }
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Returns ascending offsets [0, b1, ..., size], each b_i just after a '\n'
+    private static long[] splitPoints(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunk = size / Math.max(1, (long) parallelism * CHUNKS_PER_THREAD);
+        chunk = Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, chunk));
+
+        List<Long> points = new ArrayList<>();
+        points.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long next = chunk;
+        while (next < size) {
+            long boundary = nextLineStart(channel, next, probe);
+            if (boundary >= size) {
+                break;
+            }
+            points.add(boundary);
+            next = boundary + chunk;
+        }
+        points.add(size);
+        return points.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+    }
+
+    private static class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final Function<String, T> parser;
+
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to, Function<String, T> parser) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from == 1) {
+                return parseRange(bounds[from], bounds[to]);
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask<T> left = new ChunkTask<>(channel, bounds, from, mid, parser);
+            ChunkTask<T> right = new ChunkTask<>(channel, bounds, mid, to, parser);
+            left.fork();
+            List<T> rightResult = right.compute();
+            List<T> result = left.join();
+            result.addAll(rightResult);
+            return result;
+        }
+
+        private List<T> parseRange(long start, long end) {
+            byte[] bytes = new byte[(int) (end - start)];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            List<T> result = new ArrayList<>();
+            int lineStart = 0;
+            int length = buffer.position();
+            for (int i = 0; i <= length; i++) {
+                if (i == length || bytes[i] == '\n') {
+                    int lineEnd = (i > lineStart && bytes[i - 1] == '\r') ? i - 1 : i;
+                    if (i < length || lineEnd > lineStart) { // No phantom line after the final '\n'
+                        T record = parser.apply(decode(decoder, bytes, lineStart, lineEnd, start));
+                        if (record != null) {
+                            result.add(record);
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            return result;
+        }
+
+        private static String decode(CharsetDecoder decoder, byte[] bytes, int from, int to, long chunkStart) {
+            if (isAscii(bytes, from, to)) {
+                return new String(bytes, from, to - from, StandardCharsets.US_ASCII); // Cannot be malformed
+            }
+            try {
+                CharBuffer chars = decoder.decode(ByteBuffer.wrap(bytes, from, to - from));
+                return chars.toString();
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException("in the line at byte offset " + (chunkStart + from), e);
+            }
+        }
+
+        private static boolean isAscii(byte[] bytes, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (bytes[i] < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
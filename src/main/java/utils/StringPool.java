@@ -0,0 +1,44 @@
+package utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StringPool - Canonical instances of repeated strings.
+ *
+ * intern() returns one shared instance per distinct value, so the copies a parser
+ * or a request creates can be dropped. Unlike String.intern() the pool is private
+ * and bounded: once it holds maxSize values, new values are returned as they are,
+ * so unique values (e.g. one-off titles) cannot grow it without limit. Entries are
+ * never evicted. Thread-safe.
+ */
+public class StringPool {
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The pooled instance equal to value, or value itself (also for null).
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = pool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (pool.size() >= maxSize) {
+            return value;
+        }
+        pooled = pool.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+}
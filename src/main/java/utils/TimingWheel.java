@@ -0,0 +1,233 @@
+package utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TimingWheel - Hashed timing wheel for large numbers of coarse timeouts.
+ *
+ * Time is cut into ticks, and a timeout due at tick t waits in slot t mod wheelSize
+ * with a count of the whole turns left before it is due. Each tick the timer thread
+ * visits one slot, runs what is due and decrements the rest. Scheduling and
+ * cancelling only enqueue the timeout on a lock-free queue, and the timer thread
+ * links it into or out of its slot, so both are O(1) whatever the number of
+ * pending timeouts. Actions run up to one tick late.
+ *
+ * A slot holds about pending / wheelSize timeouts, so pick the wheel size from the
+ * typical delay: one turn of the wheel should cover most of them.
+ */
+public class TimingWheel implements DelayScheduler {
+    // Bounds the work of one tick when a burst of timeouts is scheduled at once
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Slot[] wheel;
+    private final int mask;
+    private final long startTime;
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean stopped;
+    // Owned by the timer thread
+    private long tick;
+
+    /**
+     * Creates the wheel and starts its daemon timer thread.
+     * @param tickDuration The resolution of the timer.
+     * @param unit The unit of tickDuration.
+     * @param wheelSize The number of slots, rounded up to a power of two.
+     * @param threadName The name of the timer thread.
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, String threadName) {
+        if (tickDuration <= 0 || wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid tick duration or wheel size");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public Timeout schedule(Runnable action, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Scheduler is stopped");
+        }
+        long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+        if (deadline < 0) {
+            deadline = Long.MAX_VALUE; // Overflow: never in practice
+        }
+        Entry entry = new Entry(this, action, deadline);
+        added.add(entry);
+        return entry;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (!stopped) {
+            waitForNextTick();
+            if (stopped) {
+                break;
+            }
+            unlinkCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+        added.clear();
+        cancelled.clear();
+    }
+
+    // Returns once tick + 1 ticks have passed since start
+    private void waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startTime;
+            if (now >= deadline || stopped) {
+                return;
+            }
+            LockSupport.parkNanos(this, deadline - now);
+        }
+    }
+
+    private void transferAdded() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Entry entry = added.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.state != Entry.PENDING) {
+                continue; // Cancelled before it reached the wheel
+            }
+            long dueTick = entry.deadline / tickNanos;
+            entry.remainingRounds = (dueTick - tick) / wheel.length;
+            // An entry already due goes into the current slot and runs this tick
+            wheel[(int) (Math.max(dueTick, tick) & mask)].add(entry);
+        }
+    }
+
+    private void unlinkCancelled() {
+        Entry entry;
+        while ((entry = cancelled.poll()) != null) {
+            if (entry.slot != null) {
+                entry.slot.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of entries; touched by the timer thread only.
+     */
+    private static final class Slot {
+        private Entry head;
+        private Entry tail;
+
+        void add(Entry entry) {
+            entry.slot = this;
+            entry.prev = tail;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+        }
+
+        // Returns the entry that followed the removed one
+        Entry remove(Entry entry) {
+            Entry next = entry.next;
+            if (entry.prev == null) {
+                head = next;
+            } else {
+                entry.prev.next = next;
+            }
+            if (next == null) {
+                tail = entry.prev;
+            } else {
+                next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.slot = null;
+            return next;
+        }
+
+        void expire() {
+            Entry entry = head;
+            while (entry != null) {
+                if (entry.remainingRounds <= 0) { // Due: its deadline fell within this tick or before
+                    Entry next = remove(entry);
+                    entry.expire();
+                    entry = next;
+                } else if (entry.state == Entry.CANCELLED) {
+                    entry = remove(entry);
+                } else {
+                    entry.remainingRounds--;
+                    entry = entry.next;
+                }
+            }
+        }
+    }
+
+    private static final class Entry implements Timeout {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        final TimingWheel timer;
+        final Runnable action;
+        final long deadline;
+        volatile int state;
+        // Owned by the timer thread
+        long remainingRounds;
+        Slot slot;
+        Entry prev;
+        Entry next;
+
+        Entry(TimingWheel timer, Runnable action, long deadline) {
+            this.timer = timer;
+            this.action = action;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            timer.cancelled.add(this); // The timer thread unlinks it on its next tick
+            return true;
+        }
+
+        void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error: Scheduled action failed. Error: " + e);
+            }
+        }
+    }
+}
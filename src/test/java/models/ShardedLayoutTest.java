@@ -0,0 +1,254 @@
+package models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import utils.FileHandler;
+
+/**
+ * The sharded layout (-Dsmarttask.layout=sharded): students load on first use,
+ * an existing single store is split, and students evicted by the cache bounds
+ * come back with all their changes.
+ */
+class ShardedLayoutTest {
+    private static final String LAYOUT = "smarttask.layout";
+    private static final String MAX_STUDENTS = "smarttask.cache.maxStudents";
+    private static final int STUDENTS = 6;
+    private static final int TASKS_PER_STUDENT = 5;
+    private static final String NEXT_ID = TaskShard.SHARDS_DIR + "/next-id.txt";
+
+    @TempDir
+    Path dataDir;
+
+    private FileHandler fileHandler;
+    private TaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        fileHandler = new FileHandler(dataDir, FileHandler.SyncPolicy.NEVER);
+        System.setProperty(LAYOUT, "sharded");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (taskManager != null) {
+            taskManager.close();
+        }
+        System.clearProperty(LAYOUT);
+        System.clearProperty(MAX_STUDENTS);
+    }
+
+    @Test
+    void studentsLoadOnFirstUse() throws Exception {
+        open(0);
+        Map<String, List<Task>> added = addTasks();
+        restart(0);
+
+        assertEquals(0, taskManager.getCacheStats().getLoadedStudents());
+        Task first = added.get(email(0)).get(0);
+        assertNull(taskManager.getTask(first.getId()), "not loaded yet");
+
+        taskManager.loadStudent(email(0));
+        assertEquals(1, taskManager.getCacheStats().getLoadedStudents());
+        assertNotNull(taskManager.getTask(first.getId()));
+        assertEquals(signatures(added.get(email(0))), signatures(taskManager.getTasksByStudent(email(0))));
+    }
+
+    @Test
+    void singleStoreIsSplitIntoShards() throws Exception {
+        System.clearProperty(LAYOUT);
+        open(0);
+        Map<String, List<Task>> added = addTasks();
+        taskManager.flush().get(10, TimeUnit.SECONDS);
+        taskManager.close();
+
+        System.setProperty(LAYOUT, "sharded");
+        open(0);
+        for (Map.Entry<String, List<Task>> entry : added.entrySet()) {
+            assertEquals(signatures(entry.getValue()), signatures(taskManager.getTasksByStudent(entry.getKey())));
+        }
+        try (Stream<Path> files = Files.walk(dataDir.resolve(TaskShard.SHARDS_DIR))) {
+            assertEquals(STUDENTS, files.filter(file -> file.toString().endsWith(".txt")
+                    && !file.getFileName().toString().equals("next-id.txt")).count());
+        }
+    }
+
+    @Test
+    void evictedStudentsReloadWithTheirChanges() throws Exception {
+        open(2);
+        Map<String, List<Task>> added = addTasks();
+        for (Map.Entry<String, List<Task>> entry : added.entrySet()) {
+            // Changes by id need the student loaded, as TaskHandler makes sure for each request
+            TaskManager.StudentPin pin = taskManager.pinStudent(entry.getKey());
+            List<Task> tasks = entry.getValue();
+            tasks.replaceAll(task -> taskManager.getTask(task.getId()));
+            Task done = tasks.get(0);
+            Task updated = tasks.get(1);
+            Task deleted = tasks.remove(2);
+            assertTrue(taskManager.completeTask(done.getId()));
+            assertTrue(taskManager.updateTask(updated.getId(), "renamed", "changed", "Project",
+                    Task.Priority.HIGH, updated.getDueDate()));
+            assertTrue(taskManager.deleteTask(deleted.getId()));
+            pin.close();
+        }
+        taskManager.awaitEvictions();
+        TaskManager.CacheStats stats = taskManager.getCacheStats();
+        assertTrue(stats.getLoadedStudents() <= 2, stats.toString());
+        assertTrue(stats.getEvictions() > 0 && stats.getWriteBacks() > 0, stats.toString());
+
+        // Every student round-trips through eviction and reload, with the bound still in force
+        for (Map.Entry<String, List<Task>> entry : added.entrySet()) {
+            assertEquals(signatures(entry.getValue()), signatures(taskManager.getTasksByStudent(entry.getKey())),
+                    entry.getKey());
+            assertEquals(TASKS_PER_STUDENT - 1, taskManager.getTaskStats(entry.getKey()).getTotal());
+        }
+
+        restart(0);
+        for (Map.Entry<String, List<Task>> entry : added.entrySet()) {
+            assertEquals(signatures(entry.getValue()), signatures(taskManager.getTasksByStudent(entry.getKey())),
+                    entry.getKey());
+        }
+    }
+
+    @Test
+    void pinnedStudentIsNotEvicted() throws Exception {
+        open(1);
+        Map<String, List<Task>> added = addTasks();
+        taskManager.awaitEvictions();
+
+        TaskManager.StudentPin pin = taskManager.pinStudent(email(0));
+        Task pinned = taskManager.getTasksByStudent(email(0)).get(0);
+        for (int student = 1; student < STUDENTS; student++) {
+            taskManager.getTasksByStudent(email(student));
+        }
+        taskManager.awaitEvictions();
+        assertSame(pinned, taskManager.getTask(pinned.getId()), "still the managed task");
+        assertTrue(taskManager.completeTask(pinned.getId()));
+
+        pin.close();
+        taskManager.getTasksByStudent(email(1));
+        taskManager.awaitEvictions();
+        assertNull(taskManager.getTask(pinned.getId()), "evicted once unpinned");
+        assertEquals(1, taskManager.getTaskStats(email(0)).getCompleted());
+        assertEquals(added.get(email(0)).size(), taskManager.getTasksByStudent(email(0)).size());
+    }
+
+    @Test
+    void evictedStudentsAreForgotten() throws Exception {
+        open(2);
+        Map<String, List<Task>> added = addTasks();
+        // Cycle through many more students than the bound, twice, reloading the ones with tasks
+        for (int round = 0; round < 2; round++) {
+            for (int student = 0; student < 50; student++) {
+                taskManager.getTaskStats(email(student));
+                taskManager.awaitEvictions();
+                assertTrue(taskManager.shardCount() <= 2, "shards: " + taskManager.shardCount());
+                assertTrue(taskManager.indexedStudentCount() <= 2, "buckets: " + taskManager.indexedStudentCount());
+            }
+        }
+        for (Map.Entry<String, List<Task>> entry : added.entrySet()) {
+            assertEquals(signatures(entry.getValue()), signatures(taskManager.getTasksByStudent(entry.getKey())),
+                    entry.getKey());
+        }
+    }
+
+    @Test
+    void corruptReservedIdsAreRecoveredFromTheShards() throws Exception {
+        open(0);
+        Map<String, List<Task>> added = addTasks();
+        taskManager.flush().get(10, TimeUnit.SECONDS);
+        taskManager.close();
+        Files.writeString(dataDir.resolve(NEXT_ID), "garbage");
+
+        open(0);
+        int maxId = added.values().stream().flatMap(List::stream).mapToInt(Task::getId).max().orElseThrow();
+        Task task = taskManager.addTask("after", "", "Lab", Task.Priority.LOW, LocalDateTime.now(), email(0));
+        assertTrue(task.getId() > maxId, task.getId() + " must not reuse an id up to " + maxId);
+    }
+
+    @Test
+    void addFailsWhenIdsCannotBeReserved() throws Exception {
+        open(0);
+        addTasks();
+        // A non-empty directory in place of the file: the rename of a rewrite fails
+        Path nextId = dataDir.resolve(NEXT_ID);
+        Files.delete(nextId);
+        Files.createDirectories(nextId.resolve("blocked"));
+
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(new Task(0, email(0), "bulk " + i, "", "Lab", Task.Priority.LOW, LocalDateTime.now()));
+        }
+        assertThrows(UncheckedIOException.class, () -> taskManager.addTasks(batch));
+        assertThrows(UncheckedIOException.class, () -> taskManager.addTask("one", "", "Lab", Task.Priority.LOW,
+                LocalDateTime.now(), email(0)), "still unreserved");
+        assertEquals(TASKS_PER_STUDENT, taskManager.getTasksByStudent(email(0)).size(), "nothing added");
+
+        Files.delete(nextId.resolve("blocked"));
+        Files.delete(nextId);
+        Task task = taskManager.addTask("one", "", "Lab", Task.Priority.LOW, LocalDateTime.now(), email(0));
+        restart(0);
+        assertTrue(Integer.parseInt(Files.readString(nextId).trim()) > task.getId(), "reserved on disk");
+    }
+
+    private void open(int maxStudents) {
+        System.setProperty(MAX_STUDENTS, String.valueOf(maxStudents));
+        taskManager = new TaskManager(fileHandler, new TextTaskCodec());
+    }
+
+    private void restart(int maxStudents) throws Exception {
+        taskManager.flush().get(10, TimeUnit.SECONDS);
+        taskManager.close();
+        open(maxStudents);
+    }
+
+    // Adds TASKS_PER_STUDENT tasks for each of STUDENTS students, one student after the other
+    private Map<String, List<Task>> addTasks() {
+        Map<String, List<Task>> added = new LinkedHashMap<>();
+        for (int student = 0; student < STUDENTS; student++) {
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 0; i < TASKS_PER_STUDENT; i++) {
+                tasks.add(taskManager.addTask("task " + i, "for student " + student, "Lab", Task.Priority.LOW,
+                        LocalDateTime.now().plusDays(1 + i), email(student)));
+            }
+            added.put(email(student), tasks);
+        }
+        return added;
+    }
+
+    private static String email(int student) {
+        return "student" + student + "@uni.edu";
+    }
+
+    private static Set<String> signatures(Collection<Task> tasks) {
+        Set<String> signatures = new TreeSet<>();
+        for (Task task : tasks) {
+            signatures.add(task.getId() + "|" + task.getTitle() + "|" + task.getDescription() + "|"
+                    + task.getCategory() + "|" + task.getPriority() + "|" + task.isCompleted());
+        }
+        return signatures;
+    }
+}
@@ -0,0 +1,206 @@
+package models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import utils.FileHandler;
+
+/**
+ * Concurrent changes through TaskManager: many threads on one student must not
+ * lose or tear changes, and students must not wait for each other's locks.
+ */
+class TaskManagerConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 200;
+
+    @TempDir
+    Path dataDir;
+
+    private FileHandler fileHandler;
+    private TaskManager taskManager;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        fileHandler = new FileHandler(dataDir, FileHandler.SyncPolicy.NEVER);
+        taskManager = new TaskManager(fileHandler, new TextTaskCodec());
+        pool = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        taskManager.close();
+    }
+
+    @Test
+    void concurrentChangesToOneStudentAreAllKept() throws Exception {
+        String email = "shared@uni.edu";
+        runConcurrently(thread -> changeTasks(email, thread));
+
+        // Per thread: every task updated, even ones completed, every fourth deleted (none of them even)
+        List<Task> tasks = taskManager.getTasksByStudent(email);
+        assertEquals(THREADS * TASKS_PER_THREAD * 3 / 4, tasks.size());
+        assertTrue(tasks.stream().allMatch(task -> task.getTitle().startsWith("updated")));
+        assertEquals(THREADS * TASKS_PER_THREAD / 2, tasks.stream().filter(Task::isCompleted).count());
+        Set<Integer> ids = new HashSet<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+        assertEquals(tasks.size(), ids.size(), "ids are unique");
+
+        TaskManager.TaskStats stats = taskManager.getTaskStats(email);
+        assertEquals(tasks.size(), stats.getTotal());
+        assertEquals(THREADS * TASKS_PER_THREAD / 2, stats.getCompleted());
+
+        assertSameAfterRestart(List.of(email));
+    }
+
+    @Test
+    void concurrentChangesToManyStudentsAreAllKept() throws Exception {
+        List<String> emails = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            emails.add("student" + thread + "@uni.edu");
+        }
+        runConcurrently(thread -> changeTasks(emails.get(thread), thread));
+
+        for (String email : emails) {
+            List<Task> tasks = taskManager.getTasksByStudent(email);
+            assertEquals(TASKS_PER_THREAD * 3 / 4, tasks.size(), email);
+            assertTrue(tasks.stream().allMatch(task -> task.getStudentEmail().equals(email)));
+            assertEquals(TASKS_PER_THREAD / 2, taskManager.getTaskStats(email).getCompleted(), email);
+        }
+        assertSameAfterRestart(emails);
+    }
+
+    @Test
+    void studentsDoNotWaitForEachOther() throws Exception {
+        // Listeners run under the student's lock, so this one holds the slow student's lock until released
+        CountDownLatch inListener = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        taskManager.addTaskListener(new TaskListener() {
+            @Override
+            public void onTaskAdded(Task task) {
+                if (task.getStudentEmail().equals("slow@uni.edu")) {
+                    inListener.countDown();
+                    await(release);
+                }
+            }
+        });
+        Future<Task> slow = pool.submit(() -> addTask("slow@uni.edu", "slow"));
+        assertTrue(inListener.await(10, TimeUnit.SECONDS));
+
+        Future<Task> sameStudent = pool.submit(() -> addTask("slow@uni.edu", "waits"));
+        Future<Task> otherStudent = pool.submit(() -> addTask("fast@uni.edu", "fast"));
+        otherStudent.get(10, TimeUnit.SECONDS);
+        assertEquals(1, taskManager.getTasksByStudent("fast@uni.edu").size());
+        assertFalse(isDoneWithin(sameStudent, 200), "the same student's change waits for the lock");
+
+        release.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        sameStudent.get(10, TimeUnit.SECONDS);
+        assertEquals(2, taskManager.getTasksByStudent("slow@uni.edu").size());
+    }
+
+    // Adds, updates, completes and deletes one thread's share of tasks for a student
+    private void changeTasks(String email, int thread) {
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < TASKS_PER_THREAD; i++) {
+            added.add(addTask(email, "task " + thread + "-" + i));
+        }
+        for (int i = 0; i < TASKS_PER_THREAD; i++) {
+            Task task = added.get(i);
+            assertTrue(taskManager.updateTask(task.getId(), "updated " + thread + "-" + i, "changed",
+                    "Study", Task.Priority.HIGH, task.getDueDate()));
+            if (i % 2 == 0) {
+                assertTrue(taskManager.completeTask(task.getId()));
+            } else if (i % 4 == 3) {
+                assertTrue(taskManager.deleteTask(task.getId()));
+            }
+        }
+    }
+
+    private Task addTask(String email, String title) {
+        return taskManager.addTask(title, "", "Lab", Task.Priority.MEDIUM, LocalDateTime.now().plusDays(3), email);
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    // Starts the body on every thread at once and rethrows the first failure
+    private void runConcurrently(ThreadBody body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int id = thread;
+            futures.add(pool.submit(() -> {
+                start.await();
+                body.run(id);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    // Reopens the store and checks that it holds what memory held
+    private void assertSameAfterRestart(List<String> emails) throws Exception {
+        List<Set<String>> before = new ArrayList<>();
+        for (String email : emails) {
+            before.add(signatures(taskManager, email));
+        }
+        taskManager.flush().get(10, TimeUnit.SECONDS);
+        taskManager.close();
+        taskManager = new TaskManager(fileHandler, new TextTaskCodec());
+        for (int i = 0; i < emails.size(); i++) {
+            assertEquals(before.get(i), signatures(taskManager, emails.get(i)), emails.get(i));
+        }
+    }
+
+    private static Set<String> signatures(TaskManager taskManager, String email) {
+        Set<String> signatures = new TreeSet<>();
+        for (Task task : taskManager.getTasksByStudent(email)) {
+            signatures.add(task.getId() + "|" + task.getTitle() + "|" + task.getCategory() + "|"
+                    + task.getPriority() + "|" + task.isCompleted());
+        }
+        return signatures;
+    }
+
+    private static boolean isDoneWithin(Future<?> future, long millis) throws Exception {
+        try {
+            future.get(millis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}